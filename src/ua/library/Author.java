@@ -12,6 +12,10 @@ public record Author(String firstName, String lastName, int birthYear) implement
     
     private static final Logger logger = Logger.getLogger(Author.class.getName());
     
+    private static final Comparator<Author> BY_BIRTH_YEAR = Comparator.comparingInt(Author::birthYear);
+    private static final Comparator<Author> BY_FIRST_NAME = Comparator.comparing(Author::firstName, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Author> BY_BIRTH_YEAR_DESCENDING = BY_BIRTH_YEAR.reversed();
+    
     public Author {
         List<String> errors = new ArrayList<>();
         
@@ -45,14 +49,14 @@ public record Author(String firstName, String lastName, int birthYear) implement
     }
     
     public static Comparator<Author> byBirthYear() {
-        return Comparator.comparingInt(Author::birthYear);
+        return BY_BIRTH_YEAR;
     }
     
     public static Comparator<Author> byFirstName() {
-        return Comparator.comparing(Author::firstName, String.CASE_INSENSITIVE_ORDER);
+        return BY_FIRST_NAME;
     }
     
     public static Comparator<Author> byBirthYearDescending() {
-        return byBirthYear().reversed();
+        return BY_BIRTH_YEAR_DESCENDING;
     }
 }
@@ -11,10 +11,17 @@ import java.util.Objects;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
-public class Book implements Comparable<Book> {
+public class Book implements Comparable<Book>, ChangeNotifier<Book> {
     
     private static final Logger logger = Logger.getLogger(Book.class.getName());
     
+    private static final Comparator<Book> BY_ISBN = Comparator.comparing(Book::getIsbn);
+    private static final Comparator<Book> BY_STATUS = Comparator.comparing(Book::getStatus);
+    private static final Comparator<Book> BY_FIRST_AUTHOR = Comparator.comparing(Book::firstAuthor);
+    private static final Comparator<Book> BY_TITLE_DESCENDING = Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER).reversed();
+    
+    private final EntityChangeSupport<Book> changes = new EntityChangeSupport<>(this);
+    
     private String title;
     private List<Author> authors;
     private String isbn;
@@ -57,21 +64,27 @@ public class Book implements Comparable<Book> {
         DataValidator.validateString(title, "title", errors);
         DataValidator.throwIfErrors(errors);
         
+        String previous = this.title;
+        changes.change("title", () -> this.title = title, () -> this.title = previous);
         logger.log(Level.INFO, "Book title updated: {0}", title);
-        this.title = title;
     }
     
     public List<Author> getAuthors() {
         return Collections.unmodifiableList(authors);
     }
     
+    private Author firstAuthor() {
+        return authors.get(0);
+    }
+    
     public void setAuthors(List<Author> authors) throws InvalidDataException {
         List<String> errors = new ArrayList<>();
         DataValidator.validateNotEmpty(authors, "authors", errors);
         DataValidator.throwIfErrors(errors);
         
+        List<Author> previous = this.authors;
+        changes.change("authors", () -> this.authors = new ArrayList<>(authors), () -> this.authors = previous);
         logger.log(Level.INFO, "Book authors updated");
-        this.authors = new ArrayList<>(authors);
     }
     
     public String getIsbn() {
@@ -83,8 +96,9 @@ public class Book implements Comparable<Book> {
         DataValidator.validateISBN(isbn, errors);
         DataValidator.throwIfErrors(errors);
         
+        String previous = this.isbn;
+        changes.change("isbn", () -> this.isbn = isbn, () -> this.isbn = previous);
         logger.log(Level.INFO, "Book ISBN updated: {0}", isbn);
-        this.isbn = isbn;
     }
     
     public BookStatus getStatus() {
@@ -96,8 +110,9 @@ public class Book implements Comparable<Book> {
         DataValidator.validateNotNull(status, "status", errors);
         DataValidator.throwIfErrors(errors);
         
+        BookStatus previous = this.status;
+        changes.change("status", () -> this.status = status, () -> this.status = previous);
         logger.log(Level.INFO, "Book status updated: {0}", status);
-        this.status = status;
     }
     
     public String getStatusInfo() {
@@ -109,6 +124,16 @@ public class Book implements Comparable<Book> {
         };
     }
     
+    @Override
+    public void addChangeListener(EntityChangeListener<? super Book> listener) {
+        changes.addListener(listener);
+    }
+    
+    @Override
+    public void removeChangeListener(EntityChangeListener<? super Book> listener) {
+        changes.removeListener(listener);
+    }
+    
     @Override
     public String toString() {
         return "Book{" +
@@ -138,18 +163,18 @@ public class Book implements Comparable<Book> {
     }
     
     public static Comparator<Book> byIsbn() {
-        return Comparator.comparing(Book::getIsbn);
+        return BY_ISBN;
     }
     
     public static Comparator<Book> byStatus() {
-        return Comparator.comparing(Book::getStatus);
+        return BY_STATUS;
     }
     
     public static Comparator<Book> byFirstAuthor() {
-        return Comparator.comparing(book -> book.getAuthors().get(0), Author::compareTo);
+        return BY_FIRST_AUTHOR;
     }
     
     public static Comparator<Book> byTitleDescending() {
-        return Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER).reversed();
+        return BY_TITLE_DESCENDING;
     }
 }
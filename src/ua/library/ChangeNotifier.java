@@ -0,0 +1,8 @@
+package ua.library;
+
+public interface ChangeNotifier<T> {
+    
+    void addChangeListener(EntityChangeListener<? super T> listener);
+    
+    void removeChangeListener(EntityChangeListener<? super T> listener);
+}
@@ -0,0 +1,19 @@
+package ua.library;
+
+public interface EntityChangeListener<T> {
+    
+    void beforeChange(T entity, String field);
+    
+    default boolean acceptChange(T entity, String field) {
+        return true;
+    }
+    
+    default void commitChange(T entity, String field) {
+    }
+    
+    void afterChange(T entity, String field);
+    
+    default long changeOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,157 @@
+package ua.library;
+
+import ua.util.InvalidDataException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public final class EntityChangeSupport<T> {
+    
+    private static final Logger logger = Logger.getLogger(EntityChangeSupport.class.getName());
+    
+    private final T owner;
+    private volatile List<Registration<T>> listeners = List.of();
+    
+    private record Registration<T>(WeakReference<EntityChangeListener<? super T>> listener, long order) {
+        
+        EntityChangeListener<? super T> get() {
+            return listener.get();
+        }
+    }
+    
+    public EntityChangeSupport(T owner) {
+        this.owner = owner;
+    }
+    
+    public synchronized void addListener(EntityChangeListener<? super T> listener) {
+        if (listener == null) {
+            return;
+        }
+        List<Registration<T>> updated = new ArrayList<>(listeners.size() + 1);
+        for (Registration<T> registration : listeners) {
+            EntityChangeListener<? super T> registered = registration.get();
+            if (registered == listener) {
+                return;
+            }
+            if (registered != null) {
+                updated.add(registration);
+            }
+        }
+        int position = updated.size();
+        while (position > 0 && updated.get(position - 1).order() > listener.changeOrder()) {
+            position--;
+        }
+        updated.add(position, new Registration<>(new WeakReference<>(listener), listener.changeOrder()));
+        listeners = List.copyOf(updated);
+    }
+    
+    public synchronized void removeListener(EntityChangeListener<? super T> listener) {
+        List<Registration<T>> updated = new ArrayList<>(listeners.size());
+        for (Registration<T> registration : listeners) {
+            EntityChangeListener<? super T> registered = registration.get();
+            if (registered != null && registered != listener) {
+                updated.add(registration);
+            }
+        }
+        if (updated.size() != listeners.size()) {
+            listeners = List.copyOf(updated);
+        }
+    }
+    
+    public boolean hasListeners() {
+        return !live().isEmpty();
+    }
+    
+    public void change(String field, Runnable apply, Runnable revert) throws InvalidDataException {
+        List<EntityChangeListener<? super T>> current = live();
+        if (current.isEmpty()) {
+            apply.run();
+            return;
+        }
+        
+        int detached = 0;
+        boolean accepted = true;
+        try {
+            while (detached < current.size()) {
+                current.get(detached).beforeChange(owner, field);
+                detached++;
+            }
+            apply.run();
+            for (int i = 0; i < detached && accepted; i++) {
+                accepted = current.get(i).acceptChange(owner, field);
+            }
+            if (!accepted) {
+                revert.run();
+            } else {
+                commit(current, detached, field, revert);
+            }
+        } finally {
+            attach(current, detached, field);
+        }
+        
+        if (!accepted) {
+            logger.log(Level.WARNING, "Change of {0} rejected: the new value collides with an existing entry", field);
+            throw new InvalidDataException(field, "value is already used by another entry");
+        }
+    }
+    
+    private void commit(List<EntityChangeListener<? super T>> current, int detached, String field, Runnable revert) {
+        try {
+            for (int i = 0; i < detached; i++) {
+                current.get(i).commitChange(owner, field);
+            }
+        } catch (RuntimeException e) {
+            revert.run();
+            throw e;
+        }
+    }
+    
+    private List<EntityChangeListener<? super T>> live() {
+        List<Registration<T>> registrations = listeners;
+        if (registrations.isEmpty()) {
+            return List.of();
+        }
+        List<EntityChangeListener<? super T>> result = new ArrayList<>(registrations.size());
+        for (Registration<T> registration : registrations) {
+            EntityChangeListener<? super T> listener = registration.get();
+            if (listener != null) {
+                result.add(listener);
+            }
+        }
+        if (result.size() != registrations.size()) {
+            prune();
+        }
+        return result;
+    }
+    
+    private synchronized void prune() {
+        List<Registration<T>> updated = new ArrayList<>(listeners.size());
+        for (Registration<T> registration : listeners) {
+            if (registration.get() != null) {
+                updated.add(registration);
+            }
+        }
+        listeners = List.copyOf(updated);
+        logger.log(Level.FINE, "Dropped change listeners that were garbage collected");
+    }
+    
+    private void attach(List<EntityChangeListener<? super T>> current, int count, String field) {
+        RuntimeException failure = null;
+        for (int i = count - 1; i >= 0; i--) {
+            try {
+                current.get(i).afterChange(owner, field);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -10,10 +10,17 @@ import java.util.Objects;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
-public class Loan implements Comparable<Loan> {
+public class Loan implements Comparable<Loan>, ChangeNotifier<Loan> {
     
     private static final Logger logger = Logger.getLogger(Loan.class.getName());
     
+    private static final Comparator<Loan> BY_RETURN_DATE = Comparator.comparing(Loan::getReturnDate, Comparator.nullsLast(Comparator.naturalOrder()));
+    private static final Comparator<Loan> BY_BOOK_TITLE = Comparator.comparing(loan -> loan.getBook().getTitle(), String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Loan> BY_READER = Comparator.comparing(Loan::getReader);
+    private static final Comparator<Loan> BY_ISSUE_DATE_DESCENDING = Comparator.comparing(Loan::getIssueDate).reversed();
+    
+    private final EntityChangeSupport<Loan> changes = new EntityChangeSupport<>(this);
+    
     private Book book;
     private Reader reader;
     private LocalDate issueDate;
@@ -56,8 +63,9 @@ public class Loan implements Comparable<Loan> {
         DataValidator.validateNotNull(book, "book", errors);
         DataValidator.throwIfErrors(errors);
         
+        Book previous = this.book;
+        changes.change("book", () -> this.book = book, () -> this.book = previous);
         logger.log(Level.INFO, "Loan book updated");
-        this.book = book;
     }
     
     public Reader getReader() {
@@ -69,8 +77,9 @@ public class Loan implements Comparable<Loan> {
         DataValidator.validateNotNull(reader, "reader", errors);
         DataValidator.throwIfErrors(errors);
         
+        Reader previous = this.reader;
+        changes.change("reader", () -> this.reader = reader, () -> this.reader = previous);
         logger.log(Level.INFO, "Loan reader updated");
-        this.reader = reader;
     }
     
     public LocalDate getIssueDate() {
@@ -85,8 +94,9 @@ public class Loan implements Comparable<Loan> {
         }
         DataValidator.throwIfErrors(errors);
         
+        LocalDate previous = this.issueDate;
+        changes.change("issueDate", () -> this.issueDate = issueDate, () -> this.issueDate = previous);
         logger.log(Level.INFO, "Loan issue date updated");
-        this.issueDate = issueDate;
     }
     
     public LocalDate getReturnDate() {
@@ -100,14 +110,25 @@ public class Loan implements Comparable<Loan> {
         }
         DataValidator.throwIfErrors(errors);
         
+        LocalDate previous = this.returnDate;
+        changes.change("returnDate", () -> this.returnDate = returnDate, () -> this.returnDate = previous);
         logger.log(Level.INFO, "Loan return date updated");
-        this.returnDate = returnDate;
     }
     
     public boolean isOverdue() {
         return returnDate != null && LocalDate.now().isAfter(returnDate);
     }
     
+    @Override
+    public void addChangeListener(EntityChangeListener<? super Loan> listener) {
+        changes.addListener(listener);
+    }
+    
+    @Override
+    public void removeChangeListener(EntityChangeListener<? super Loan> listener) {
+        changes.removeListener(listener);
+    }
+    
     @Override
     public String toString() {
         return "Loan{" +
@@ -140,18 +161,18 @@ public class Loan implements Comparable<Loan> {
     }
     
     public static Comparator<Loan> byReturnDate() {
-        return Comparator.comparing(Loan::getReturnDate, Comparator.nullsLast(Comparator.naturalOrder()));
+        return BY_RETURN_DATE;
     }
     
     public static Comparator<Loan> byBookTitle() {
-        return Comparator.comparing(loan -> loan.getBook().getTitle(), String.CASE_INSENSITIVE_ORDER);
+        return BY_BOOK_TITLE;
     }
     
     public static Comparator<Loan> byReader() {
-        return Comparator.comparing(Loan::getReader);
+        return BY_READER;
     }
     
     public static Comparator<Loan> byIssueDateDescending() {
-        return Comparator.comparing(Loan::getIssueDate).reversed();
+        return BY_ISSUE_DATE_DESCENDING;
     }
 }
@@ -11,10 +11,17 @@ import java.util.Objects;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
-public class Membership implements Comparable<Membership> {
+public class Membership implements Comparable<Membership>, ChangeNotifier<Membership> {
     
     private static final Logger logger = Logger.getLogger(Membership.class.getName());
     
+    private static final Comparator<Membership> BY_END_DATE = Comparator.comparing(Membership::getEndDate);
+    private static final Comparator<Membership> BY_TYPE = Comparator.comparing(Membership::getType);
+    private static final Comparator<Membership> BY_READER = Comparator.comparing(Membership::getReader);
+    private static final Comparator<Membership> BY_START_DATE_DESCENDING = Comparator.comparing(Membership::getStartDate).reversed();
+    
+    private final EntityChangeSupport<Membership> changes = new EntityChangeSupport<>(this);
+    
     private Reader reader;
     private LocalDate startDate;
     private LocalDate endDate;
@@ -60,8 +67,9 @@ public class Membership implements Comparable<Membership> {
         DataValidator.validateNotNull(reader, "reader", errors);
         DataValidator.throwIfErrors(errors);
         
+        Reader previous = this.reader;
+        changes.change("reader", () -> this.reader = reader, () -> this.reader = previous);
         logger.log(Level.INFO, "Membership reader updated");
-        this.reader = reader;
     }
     
     public LocalDate getStartDate() {
@@ -76,8 +84,9 @@ public class Membership implements Comparable<Membership> {
         }
         DataValidator.throwIfErrors(errors);
         
+        LocalDate previous = this.startDate;
+        changes.change("startDate", () -> this.startDate = startDate, () -> this.startDate = previous);
         logger.log(Level.INFO, "Membership start date updated");
-        this.startDate = startDate;
     }
     
     public LocalDate getEndDate() {
@@ -92,8 +101,9 @@ public class Membership implements Comparable<Membership> {
         }
         DataValidator.throwIfErrors(errors);
         
+        LocalDate previous = this.endDate;
+        changes.change("endDate", () -> this.endDate = endDate, () -> this.endDate = previous);
         logger.log(Level.INFO, "Membership end date updated");
-        this.endDate = endDate;
     }
     
     public MembershipType getType() {
@@ -105,8 +115,9 @@ public class Membership implements Comparable<Membership> {
         DataValidator.validateNotNull(type, "type", errors);
         DataValidator.throwIfErrors(errors);
         
+        MembershipType previous = this.type;
+        changes.change("type", () -> this.type = type, () -> this.type = previous);
         logger.log(Level.INFO, "Membership type updated: {0}", type);
-        this.type = type;
     }
     
     public boolean isActive() {
@@ -127,6 +138,16 @@ public class Membership implements Comparable<Membership> {
         };
     }
     
+    @Override
+    public void addChangeListener(EntityChangeListener<? super Membership> listener) {
+        changes.addListener(listener);
+    }
+    
+    @Override
+    public void removeChangeListener(EntityChangeListener<? super Membership> listener) {
+        changes.removeListener(listener);
+    }
+    
     @Override
     public String toString() {
         return "Membership{" +
@@ -158,18 +179,18 @@ public class Membership implements Comparable<Membership> {
     }
     
     public static Comparator<Membership> byEndDate() {
-        return Comparator.comparing(Membership::getEndDate);
+        return BY_END_DATE;
     }
     
     public static Comparator<Membership> byType() {
-        return Comparator.comparing(Membership::getType);
+        return BY_TYPE;
     }
     
     public static Comparator<Membership> byReader() {
-        return Comparator.comparing(Membership::getReader);
+        return BY_READER;
     }
     
     public static Comparator<Membership> byStartDateDescending() {
-        return Comparator.comparing(Membership::getStartDate).reversed();
+        return BY_START_DATE_DESCENDING;
     }
 }
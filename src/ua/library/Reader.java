@@ -12,6 +12,10 @@ public record Reader(String firstName, String lastName, String readerId) impleme
     
     private static final Logger logger = Logger.getLogger(Reader.class.getName());
     
+    private static final Comparator<Reader> BY_FIRST_NAME = Comparator.comparing(Reader::firstName, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Reader> BY_LAST_NAME = Comparator.comparing(Reader::lastName, String.CASE_INSENSITIVE_ORDER);
+    private static final Comparator<Reader> BY_FULL_NAME = Comparator.comparing(Reader::getFullName, String.CASE_INSENSITIVE_ORDER);
+    
     public Reader {
         List<String> errors = new ArrayList<>();
         
@@ -41,14 +45,14 @@ public record Reader(String firstName, String lastName, String readerId) impleme
     }
     
     public static Comparator<Reader> byFirstName() {
-        return Comparator.comparing(Reader::firstName, String.CASE_INSENSITIVE_ORDER);
+        return BY_FIRST_NAME;
     }
     
     public static Comparator<Reader> byLastName() {
-        return Comparator.comparing(Reader::lastName, String.CASE_INSENSITIVE_ORDER);
+        return BY_LAST_NAME;
     }
     
     public static Comparator<Reader> byFullName() {
-        return Comparator.comparing(Reader::getFullName, String.CASE_INSENSITIVE_ORDER);
+        return BY_FULL_NAME;
     }
 }
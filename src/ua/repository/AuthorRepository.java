@@ -3,6 +3,7 @@ package ua.repository;
 import ua.library.Author;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -10,99 +11,116 @@ public class AuthorRepository extends GenericRepository<Author> {
     
     private static final Logger logger = Logger.getLogger(AuthorRepository.class.getName());
     
+    private final CountingIndex<Author, Integer> birthYearCounts;
+    private final PrefixIndex<Author> namePrefix;
+    
     public AuthorRepository() {
-        super(author -> author.firstName() + "|" + author.lastName() + "|" + author.birthYear());
+        this(false);
+    }
+    
+    public AuthorRepository(boolean concurrent) {
+        super(author -> author.firstName() + "|" + author.lastName() + "|" + author.birthYear(), concurrent);
+        registerIndex("firstName", author -> foldCase(author.firstName()));
+        registerIndex("lastName", author -> foldCase(author.lastName()));
+        registerIndex("birthYear", Author::birthYear);
+        birthYearCounts = attachIndex("birthYearCount", CountingIndex.forKeys("birthYearCount", Author::birthYear));
+        namePrefix = attachIndex("namePrefix", new PrefixIndex<>("namePrefix", author -> 
+                List.of(author.getFullName(), author.lastName() + " " + author.firstName()), concurrent));
+        registerSortedView("byName", Comparator.naturalOrder());
+        registerSortedView("byBirthYear", Author.byBirthYear());
+        registerSortedView("byFirstName", Author.byFirstName());
+        registerSortedView("byBirthYearDescending", Author.byBirthYearDescending());
         logger.log(Level.INFO, "AuthorRepository initialized");
     }
     
     public List<Author> sortByName() {
         logger.log(Level.INFO, "Sorting authors by name");
-        List<Author> sorted = getAll();
-        sorted.sort(Author::compareTo);
-        return sorted;
+        return findSorted("byName");
     }
     
     public List<Author> sortByBirthYear() {
         logger.log(Level.INFO, "Sorting authors by birth year");
-        List<Author> sorted = getAll();
-        sorted.sort(Author.byBirthYear());
-        return sorted;
+        return findSorted("byBirthYear");
     }
     
     public List<Author> sortByFirstName() {
         logger.log(Level.INFO, "Sorting authors by first name");
-        List<Author> sorted = getAll();
-        sorted.sort(Author.byFirstName());
-        return sorted;
+        return findSorted("byFirstName");
     }
     
     public List<Author> sortByBirthYearDescending() {
         logger.log(Level.INFO, "Sorting authors by birth year descending");
-        List<Author> sorted = getAll();
-        sorted.sort(Author.byBirthYearDescending());
-        return sorted;
+        return findSorted("byBirthYearDescending");
+    }
+    
+    public List<String> suggestNames(String prefix, int limit) {
+        logger.log(Level.FINE, "Suggesting author names for prefix: {0}", prefix);
+        return namePrefix.complete(prefix, limit);
+    }
+    
+    public List<Author> findByNamePrefix(String prefix, int limit) {
+        logger.log(Level.INFO, "Searching authors by name prefix: {0}", prefix);
+        return namePrefix.findByPrefix(prefix, limit);
     }
     
     public List<Author> findByLastName(String lastName) {
         logger.log(Level.INFO, "Searching authors by last name: {0}", lastName);
-        return getAll().stream()
-                .filter(author -> author.lastName().equalsIgnoreCase(lastName))
-                .collect(Collectors.toList());
+        return cached("findByLastName", () -> findByIndex("lastName", foldCase(lastName)), lastName);
     }
     
     public List<Author> findByFirstName(String firstName) {
         logger.log(Level.INFO, "Searching authors by first name: {0}", firstName);
-        return getAll().stream()
-                .filter(author -> author.firstName().equalsIgnoreCase(firstName))
-                .collect(Collectors.toList());
+        return cached("findByFirstName", () -> findByIndex("firstName", foldCase(firstName)), firstName);
     }
     
     public List<Author> findByBirthYearRange(int minYear, int maxYear) {
         logger.log(Level.INFO, "Searching authors by birth year range: {0} - {1}", new Object[]{minYear, maxYear});
-        return getAll().stream()
+        return cached("findByBirthYearRange", () -> scan(items -> items
                 .filter(author -> author.birthYear() >= minYear && author.birthYear() <= maxYear)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())), minYear, maxYear);
     }
     
     public List<Author> findByBirthYear(int birthYear) {
         logger.log(Level.INFO, "Searching authors by birth year: {0}", birthYear);
-        return getAll().stream()
-                .filter(author -> author.birthYear() == birthYear)
-                .collect(Collectors.toList());
+        return cached("findByBirthYear", () -> findByIndex("birthYear", birthYear), birthYear);
+    }
+    
+    public Stream<Author> streamByBirthYear(int birthYear) {
+        logger.log(Level.INFO, "Streaming authors by birth year: {0}", birthYear);
+        return streamByIndex("birthYear", birthYear);
     }
     
     public Optional<Author> findOldest() {
         logger.log(Level.INFO, "Finding oldest author");
-        return getAll().stream()
-                .min(Author.byBirthYear());
+        return scan(items -> items
+                .min(Author.byBirthYear()));
     }
     
     public Optional<Author> findYoungest() {
         logger.log(Level.INFO, "Finding youngest author");
-        return getAll().stream()
-                .max(Author.byBirthYear());
+        return scan(items -> items
+                .max(Author.byBirthYear()));
     }
     
     public List<String> getAllLastNames() {
         logger.log(Level.INFO, "Getting all last names");
-        return getAll().stream()
+        return cached("getAllLastNames", () -> scan(items -> items
                 .map(Author::lastName)
                 .distinct()
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())));
     }
     
     public Map<Integer, Long> countByBirthYear() {
         logger.log(Level.INFO, "Counting authors by birth year");
-        return getAll().stream()
-                .collect(Collectors.groupingBy(Author::birthYear, Collectors.counting()));
+        return birthYearCounts.snapshot(getVersion());
     }
     
     public double getAverageBirthYear() {
         logger.log(Level.INFO, "Calculating average birth year");
-        return getAll().stream()
+        return scan(items -> items
                 .mapToInt(Author::birthYear)
                 .average()
-                .orElse(0.0);
+                .orElse(0.0));
     }
 }
 
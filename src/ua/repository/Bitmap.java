@@ -0,0 +1,60 @@
+package ua.repository;
+
+import java.util.BitSet;
+
+public final class Bitmap {
+    
+    private final BitSet bits;
+    private final long epoch;
+    
+    Bitmap(BitSet bits, long epoch) {
+        this.bits = bits;
+        this.epoch = epoch;
+    }
+    
+    public Bitmap and(Bitmap other) {
+        BitSet result = copy(other);
+        result.and(other.bits);
+        return new Bitmap(result, epoch);
+    }
+    
+    public Bitmap or(Bitmap other) {
+        BitSet result = copy(other);
+        result.or(other.bits);
+        return new Bitmap(result, epoch);
+    }
+    
+    public Bitmap andNot(Bitmap other) {
+        BitSet result = copy(other);
+        result.andNot(other.bits);
+        return new Bitmap(result, epoch);
+    }
+    
+    public int cardinality() {
+        return bits.cardinality();
+    }
+    
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+    
+    BitSet bits() {
+        return bits;
+    }
+    
+    long epoch() {
+        return epoch;
+    }
+    
+    private BitSet copy(Bitmap other) {
+        if (other.epoch != epoch) {
+            throw new IllegalStateException("Cannot combine bitmaps taken before and after storage was compacted");
+        }
+        return (BitSet) bits.clone();
+    }
+    
+    @Override
+    public String toString() {
+        return "Bitmap{cardinality=" + bits.cardinality() + "}";
+    }
+}
@@ -0,0 +1,186 @@
+package ua.repository;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class BitmapIndex<T, E extends Enum<E>> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(BitmapIndex.class.getName());
+    
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int CHUNK_WORDS = 1 << (CHUNK_SHIFT - 6);
+    
+    private final String name;
+    private final IndexKeyExtractor<T> keyExtractor;
+    private final Class<E> enumType;
+    private final long[][][] chunks;
+    private final long[][] owners;
+    private final long[] tableOwners;
+    private final int[] counts;
+    private long generation;
+    
+    public BitmapIndex(String name, IndexKeyExtractor<T> keyExtractor, Class<E> enumType) {
+        if (keyExtractor == null || enumType == null) {
+            throw new IllegalArgumentException("Bitmap key extractor and enum type cannot be null");
+        }
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+        this.enumType = enumType;
+        int values = enumType.getEnumConstants().length;
+        this.chunks = new long[values][][];
+        this.owners = new long[values][];
+        this.tableOwners = new long[values];
+        this.counts = new int[values];
+        clear();
+        
+        logger.log(Level.FINE, "BitmapIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        E value = keyOf(slot.item);
+        if (value != null) {
+            set(value.ordinal(), slot.position, true);
+        }
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        E value = keyOf(slot.item);
+        if (value != null) {
+            set(value.ordinal(), slot.position, false);
+        }
+    }
+    
+    @Override
+    public void clear() {
+        generation++;
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new long[1][];
+            owners[i] = new long[1];
+            tableOwners[i] = generation;
+            counts[i] = 0;
+        }
+    }
+    
+    @Override
+    public void compacted(SlotTable<T> slots) {
+        clear();
+        for (int i = 0; i < slots.end(); i++) {
+            Slot<T> slot = slots.get(i);
+            if (slot != null) {
+                add(slot);
+            }
+        }
+        logger.log(Level.FINE, "BitmapIndex {0} rebuilt after compaction", name);
+    }
+    
+    @Override
+    public boolean positional() {
+        return true;
+    }
+    
+    Frozen freeze() {
+        generation++;
+        return new Frozen(name, enumType, chunks.clone(), counts.clone());
+    }
+    
+    boolean matches(T item, Object key) {
+        return key != null && key == keyOf(item);
+    }
+    
+    private void set(int value, int position, boolean on) {
+        int chunk = position >>> CHUNK_SHIFT;
+        long[][] table = chunks[value];
+        if (chunk >= table.length) {
+            table = Arrays.copyOf(table, Math.max(chunk + 1, table.length * 2));
+            owners[value] = Arrays.copyOf(owners[value], table.length);
+            chunks[value] = table;
+            tableOwners[value] = generation;
+        } else if (tableOwners[value] != generation) {
+            table = table.clone();
+            chunks[value] = table;
+            tableOwners[value] = generation;
+        }
+        long[] words = table[chunk];
+        if (words == null) {
+            if (!on) {
+                return;
+            }
+            words = new long[CHUNK_WORDS];
+            table[chunk] = words;
+            owners[value][chunk] = generation;
+        } else if (owners[value][chunk] != generation) {
+            words = words.clone();
+            table[chunk] = words;
+            owners[value][chunk] = generation;
+        }
+        int bit = position & CHUNK_MASK;
+        long mask = 1L << bit;
+        if (((words[bit >>> 6] & mask) != 0) == on) {
+            return;
+        }
+        words[bit >>> 6] ^= mask;
+        counts[value] += on ? 1 : -1;
+    }
+    
+    private E keyOf(T item) {
+        Object key = keyExtractor.extractKey(item);
+        return enumType.isInstance(key) ? enumType.cast(key) : null;
+    }
+    
+    static final class Frozen {
+        
+        private final String name;
+        private final Class<?> enumType;
+        private final long[][][] chunks;
+        private final int[] counts;
+        
+        private Frozen(String name, Class<?> enumType, long[][][] chunks, int[] counts) {
+            this.name = name;
+            this.enumType = enumType;
+            this.chunks = chunks;
+            this.counts = counts;
+        }
+        
+        BitSet union(Enum<?>[] values) {
+            int length = 0;
+            for (Enum<?> value : values) {
+                if (!enumType.isInstance(value)) {
+                    throw new IllegalArgumentException("Index " + name + " expects values of " + enumType.getSimpleName());
+                }
+                length = Math.max(length, chunks[value.ordinal()].length);
+            }
+            long[] words = new long[length * CHUNK_WORDS];
+            for (Enum<?> value : values) {
+                long[][] table = chunks[value.ordinal()];
+                for (int chunk = 0; chunk < table.length; chunk++) {
+                    long[] source = table[chunk];
+                    if (source != null) {
+                        int offset = chunk * CHUNK_WORDS;
+                        for (int i = 0; i < CHUNK_WORDS; i++) {
+                            words[offset + i] |= source[i];
+                        }
+                    }
+                }
+            }
+            return BitSet.valueOf(words);
+        }
+        
+        int count(Enum<?> value) {
+            return enumType.isInstance(value) ? counts[value.ordinal()] : 0;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "BitmapIndex{name=" + name + ", type=" + enumType.getSimpleName() + "}";
+    }
+}
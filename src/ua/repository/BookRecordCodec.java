@@ -0,0 +1,101 @@
+package ua.repository;
+
+import ua.library.Author;
+import ua.library.Book;
+import ua.enums.BookStatus;
+import ua.util.InvalidDataException;
+import ua.util.IsbnKey;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+public class BookRecordCodec implements RecordCodec<Book> {
+    
+    static final int MAX_ISBN = 24;
+    static final int MAX_TITLE = 200;
+    static final int MAX_NAME = 48;
+    static final int MAX_AUTHORS = 4;
+    
+    static final int ISBN = 0;
+    static final int STATUS = ISBN + RecordCodec.stringField(MAX_ISBN);
+    static final int TITLE = STATUS + 1;
+    static final int AUTHOR_COUNT = TITLE + RecordCodec.stringField(MAX_TITLE);
+    static final int AUTHORS = AUTHOR_COUNT + 1;
+    static final int AUTHOR_SIZE = 2 * RecordCodec.stringField(MAX_NAME) + Integer.BYTES;
+    static final int SIZE = AUTHORS + MAX_AUTHORS * AUTHOR_SIZE;
+    
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    
+    @Override
+    public int recordSize() {
+        return SIZE;
+    }
+    
+    @Override
+    public Object identityOf(Book book) {
+        return key(book.getIsbn());
+    }
+    
+    @Override
+    public Object identityAt(ByteBuffer record) {
+        return key(RecordCodec.getString(record, ISBN));
+    }
+    
+    @Override
+    public Object identityKey(Object identity) {
+        return identity instanceof String isbn ? IsbnKey.of(isbn) : identity;
+    }
+    
+    @Override
+    public void encode(Book book, ByteBuffer record) {
+        List<Author> authors = book.getAuthors();
+        if (authors.size() > MAX_AUTHORS) {
+            throw new IllegalArgumentException("Book records hold at most " + MAX_AUTHORS + " authors: " + book.getTitle());
+        }
+        RecordCodec.putString(record, ISBN, book.getIsbn(), MAX_ISBN, "isbn");
+        record.put(STATUS, (byte) book.getStatus().ordinal());
+        RecordCodec.putString(record, TITLE, book.getTitle(), MAX_TITLE, "title");
+        record.put(AUTHOR_COUNT, (byte) authors.size());
+        for (int i = 0; i < authors.size(); i++) {
+            int offset = AUTHORS + i * AUTHOR_SIZE;
+            Author author = authors.get(i);
+            RecordCodec.putString(record, offset, author.firstName(), MAX_NAME, "firstName");
+            RecordCodec.putString(record, offset + RecordCodec.stringField(MAX_NAME), author.lastName(), MAX_NAME, "lastName");
+            record.putInt(offset + 2 * RecordCodec.stringField(MAX_NAME), author.birthYear());
+        }
+    }
+    
+    @Override
+    public Book decode(ByteBuffer record) {
+        try {
+            int count = record.get(AUTHOR_COUNT);
+            List<Author> authors = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int offset = AUTHORS + i * AUTHOR_SIZE;
+                authors.add(Author.of(RecordCodec.getString(record, offset), 
+                                      RecordCodec.getString(record, offset + RecordCodec.stringField(MAX_NAME)), 
+                                      record.getInt(offset + 2 * RecordCodec.stringField(MAX_NAME))));
+            }
+            return Book.of(RecordCodec.getString(record, TITLE), authors, RecordCodec.getString(record, ISBN), 
+                           STATUSES[record.get(STATUS)]);
+        } catch (InvalidDataException e) {
+            throw new IllegalStateException("Corrupt book record", e);
+        }
+    }
+    
+    public static RecordFilter hasStatus(BookStatus status) {
+        byte ordinal = (byte) status.ordinal();
+        return record -> record.get(STATUS) == ordinal;
+    }
+    
+    public static RecordFilter hasIsbn(String isbn) {
+        return RecordCodec.stringEquals(ISBN, isbn);
+    }
+    
+    private static long key(String isbn) {
+        long key = IsbnKey.of(isbn);
+        if (!IsbnKey.isValid(key)) {
+            throw new IllegalArgumentException("Identity is not a valid ISBN: " + isbn);
+        }
+        return key;
+    }
+}
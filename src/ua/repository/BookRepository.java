@@ -5,6 +5,7 @@ import ua.library.Author;
 import ua.enums.BookStatus;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -12,114 +13,162 @@ public class BookRepository extends GenericRepository<Book> {
     
     private static final Logger logger = Logger.getLogger(BookRepository.class.getName());
     
+    private final TextIndex<Book> titleText;
+    private final TextIndex<Book> authorText;
+    private final PrefixIndex<Book> titlePrefix;
+    
     public BookRepository() {
-        super(Book::getIsbn);
+        this(false);
+    }
+    
+    public BookRepository(boolean concurrent) {
+        super(Book::getIsbn, concurrent, new IsbnIdentityStore<>(concurrent));
+        setIdentityFields("isbn");
+        registerIndex("title", book -> foldCase(book.getTitle()), "title");
+        registerBitmapIndex("status", Book::getStatus, BookStatus.class, "status");
+        registerMultiIndex("author", Book::getAuthors, "authors");
+        titleText = attachIndex("titleText", new TextIndex<>("titleText", Book::getTitle, concurrent), "title");
+        authorText = attachIndex("authorText", new TextIndex<>("authorText", BookRepository::authorNames, concurrent), "authors");
+        titlePrefix = attachIndex("titlePrefix", new PrefixIndex<>("titlePrefix", Book::getTitle, concurrent), "title");
+        registerSortedView("byTitle", Comparator.naturalOrder(), "title");
+        registerSortedView("byIsbn", Book.byIsbn(), "isbn");
+        registerSortedView("byStatus", Book.byStatus(), "status");
+        registerSortedView("byFirstAuthor", Book.byFirstAuthor(), "authors");
+        registerSortedView("byTitleDescending", Book.byTitleDescending(), "title");
         logger.log(Level.INFO, "BookRepository initialized");
     }
     
     public List<Book> sortByTitle() {
         logger.log(Level.INFO, "Sorting books by title");
-        List<Book> sorted = getAll();
-        sorted.sort(Book::compareTo);
-        return sorted;
+        return findSorted("byTitle");
     }
     
     public List<Book> sortByIsbn() {
         logger.log(Level.INFO, "Sorting books by ISBN");
-        List<Book> sorted = getAll();
-        sorted.sort(Book.byIsbn());
-        return sorted;
+        return findSorted("byIsbn");
     }
     
     public List<Book> sortByStatus() {
         logger.log(Level.INFO, "Sorting books by status");
-        List<Book> sorted = getAll();
-        sorted.sort(Book.byStatus());
-        return sorted;
+        return findSorted("byStatus");
     }
     
     public List<Book> sortByFirstAuthor() {
         logger.log(Level.INFO, "Sorting books by first author");
-        List<Book> sorted = getAll();
-        sorted.sort(Book.byFirstAuthor());
-        return sorted;
+        return findSorted("byFirstAuthor");
     }
     
     public List<Book> sortByTitleDescending() {
         logger.log(Level.INFO, "Sorting books by title descending");
-        List<Book> sorted = getAll();
-        sorted.sort(Book.byTitleDescending());
-        return sorted;
+        return findSorted("byTitleDescending");
     }
     
     public List<Book> findByTitle(String title) {
         logger.log(Level.INFO, "Searching books by title: {0}", title);
-        return getAll().stream()
-                .filter(book -> book.getTitle().equalsIgnoreCase(title))
-                .collect(Collectors.toList());
+        return cached("findByTitle", () -> findByIndex("title", foldCase(title)), title);
     }
     
     public List<Book> findByTitleContains(String keyword) {
         logger.log(Level.INFO, "Searching books by title containing: {0}", keyword);
-        return getAll().stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                .collect(Collectors.toList());
+        return cached("findByTitleContains", () -> titleText.findContaining(keyword), keyword);
     }
     
     public List<Book> findByStatus(BookStatus status) {
         logger.log(Level.INFO, "Searching books by status: {0}", status);
-        return getAll().stream()
-                .filter(book -> book.getStatus() == status)
-                .collect(Collectors.toList());
+        return cached("findByStatus", () -> findByBitmap("status", status), status);
+    }
+    
+    public List<Book> findByStatusIn(BookStatus... statuses) {
+        logger.log(Level.INFO, "Searching books by statuses: {0}", Arrays.toString(statuses));
+        return findByBitmap("status", statuses);
+    }
+    
+    public Stream<Book> streamByStatus(BookStatus status) {
+        logger.log(Level.INFO, "Streaming books by status: {0}", status);
+        return streamByBitmap("status", status);
     }
     
     public List<Book> findByAuthor(Author author) {
         logger.log(Level.INFO, "Searching books by author: {0}", author.getFullName());
-        return getAll().stream()
-                .filter(book -> book.getAuthors().contains(author))
-                .collect(Collectors.toList());
+        return cached("findByAuthor", () -> findByIndex("author", author), author);
+    }
+    
+    public Stream<Book> streamByAuthor(Author author) {
+        logger.log(Level.INFO, "Streaming books by author: {0}", author.getFullName());
+        return streamByIndex("author", author);
     }
     
     public List<Book> findByAuthorName(String authorName) {
         logger.log(Level.INFO, "Searching books by author name: {0}", authorName);
-        return getAll().stream()
-                .filter(book -> book.getAuthors().stream()
-                        .anyMatch(author -> author.getFullName().toLowerCase().contains(authorName.toLowerCase())))
-                .collect(Collectors.toList());
+        return cached("findByAuthorName", () -> authorText.findContaining(authorName), authorName);
+    }
+    
+    public List<String> suggestTitles(String prefix, int limit) {
+        logger.log(Level.FINE, "Suggesting titles for prefix: {0}", prefix);
+        return titlePrefix.complete(prefix, limit);
+    }
+    
+    public List<Book> findByTitlePrefix(String prefix, int limit) {
+        logger.log(Level.INFO, "Searching books by title prefix: {0}", prefix);
+        return titlePrefix.findByPrefix(prefix, limit);
+    }
+    
+    public List<Book> searchByTitle(String query, int limit) {
+        logger.log(Level.INFO, "Ranked title search: {0}", query);
+        return titleText.search(query, limit);
+    }
+    
+    public List<Book> searchByAuthorName(String query, int limit) {
+        logger.log(Level.INFO, "Ranked author search: {0}", query);
+        return authorText.search(query, limit);
     }
     
     public List<String> getAllTitles() {
         logger.log(Level.INFO, "Getting all book titles");
-        return getAll().stream()
+        return cached("getAllTitles", () -> scan(items -> items
                 .map(Book::getTitle)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())));
     }
     
     public Set<Author> getAllAuthors() {
         logger.log(Level.INFO, "Getting all authors");
-        return getAll().stream()
+        return cached("getAllAuthors", () -> scan(items -> items
                 .flatMap(book -> book.getAuthors().stream())
-                .collect(Collectors.toSet());
+                .collect(Collectors.toSet())));
     }
     
     public Map<BookStatus, Long> countByStatus() {
         logger.log(Level.INFO, "Counting books by status");
-        return getAll().stream()
-                .collect(Collectors.groupingBy(Book::getStatus, Collectors.counting()));
+        return cached("countByStatus", () -> {
+            Map<BookStatus, Long> counts = new EnumMap<>(BookStatus.class);
+            for (BookStatus status : BookStatus.values()) {
+                int count = countByBitmap("status", status);
+                if (count > 0) {
+                    counts.put(status, (long) count);
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        });
     }
     
     public Optional<Book> findFirstByStatus(BookStatus status) {
         logger.log(Level.INFO, "Finding first book by status: {0}", status);
-        return getAll().stream()
-                .filter(book -> book.getStatus() == status)
-                .findFirst();
+        return findFirstByBitmap("status", status);
     }
     
     public long countByTitleContains(String keyword) {
         logger.log(Level.INFO, "Counting books with title containing: {0}", keyword);
-        return getAll().stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                .count();
+        return titleText.countContaining(keyword);
+    }
+    
+    private static String authorNames(Book book) {
+        StringBuilder names = new StringBuilder();
+        for (Author author : book.getAuthors()) {
+            if (names.length() > 0) {
+                names.append('\n');
+            }
+            names.append(author.getFullName());
+        }
+        return names.toString();
     }
 }
-
@@ -0,0 +1,19 @@
+package ua.repository;
+
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class ConcurrentGenericRepository<T> extends GenericRepository<T> {
+    
+    private static final Logger logger = Logger.getLogger(ConcurrentGenericRepository.class.getName());
+    
+    public ConcurrentGenericRepository(IdentityExtractor<T> identityExtractor) {
+        super(identityExtractor, true);
+        logger.log(Level.INFO, "ConcurrentGenericRepository initialized");
+    }
+    
+    @Override
+    public String toString() {
+        return "ConcurrentGenericRepository{size=" + size() + "}";
+    }
+}
@@ -0,0 +1,139 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class CountingIndex<T, K> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(CountingIndex.class.getName());
+    
+    private final String name;
+    private final IndexKeyExtractor<T> keyExtractor;
+    private final Class<K> enumType;
+    private final K[] constants;
+    private final AtomicLongArray enumCounts;
+    private final Map<K, Long> counts;
+    private volatile Frozen<K> frozen;
+    
+    private CountingIndex(String name, IndexKeyExtractor<T> keyExtractor, Class<K> enumType) {
+        if (keyExtractor == null) {
+            throw new IllegalArgumentException("Counter key extractor cannot be null");
+        }
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+        this.enumType = enumType;
+        this.constants = enumType == null ? null : enumType.getEnumConstants();
+        this.enumCounts = enumType == null ? null : new AtomicLongArray(constants.length);
+        this.counts = enumType == null ? new ConcurrentHashMap<>() : null;
+        
+        logger.log(Level.FINE, "CountingIndex {0} initialized", name);
+    }
+    
+    public static <T, E extends Enum<E>> CountingIndex<T, E> forEnum(String name, IndexKeyExtractor<T> keyExtractor,
+                                                                      Class<E> enumType) {
+        return new CountingIndex<>(name, keyExtractor, enumType);
+    }
+    
+    public static <T, K> CountingIndex<T, K> forKeys(String name, IndexKeyExtractor<T> keyExtractor) {
+        return new CountingIndex<>(name, keyExtractor, null);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        count(keyExtractor.extractKey(slot.item), 1);
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        count(keyExtractor.extractKey(slot.item), -1);
+    }
+    
+    @Override
+    public void clear() {
+        if (enumCounts != null) {
+            for (int i = 0; i < constants.length; i++) {
+                enumCounts.set(i, 0);
+            }
+        } else {
+            counts.clear();
+        }
+    }
+    
+    public long count(K key) {
+        return countOf(key);
+    }
+    
+    public Map<K, Long> snapshot(long version) {
+        Frozen<K> current = frozen;
+        if (current != null && current.version() == version) {
+            return current.counts();
+        }
+        Map<K, Long> result = snapshot();
+        frozen = new Frozen<>(version, result);
+        return result;
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Map<K, Long> snapshot() {
+        Map<K, Long> result;
+        if (enumCounts != null) {
+            result = new EnumMap(enumType);
+            for (int i = 0; i < constants.length; i++) {
+                long value = enumCounts.get(i);
+                if (value > 0) {
+                    result.put(constants[i], value);
+                }
+            }
+        } else {
+            result = new HashMap<>();
+            for (Map.Entry<K, Long> entry : counts.entrySet()) {
+                long value = entry.getValue();
+                if (value > 0) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+    
+    private long countOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        if (enumCounts != null) {
+            return enumType.isInstance(key) ? enumCounts.get(((Enum<?>) key).ordinal()) : 0;
+        }
+        Long counter = counts.get(key);
+        return counter == null ? 0 : counter;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void count(Object key, int delta) {
+        if (key == null) {
+            return;
+        }
+        if (enumCounts != null) {
+            enumCounts.addAndGet(((Enum<?>) key).ordinal(), delta);
+            return;
+        }
+        if (delta > 0) {
+            counts.merge((K) key, (long) delta, Long::sum);
+        } else {
+            counts.computeIfPresent((K) key, (k, counter) -> counter + delta <= 0 ? null : counter + delta);
+        }
+    }
+    
+    private record Frozen<K>(long version, Map<K, Long> counts) {}
+    
+    @Override
+    public String toString() {
+        return "CountingIndex{name=" + name + "}";
+    }
+}
@@ -1,6 +1,17 @@
 package ua.repository;
 
+import ua.library.ChangeNotifier;
+import ua.library.EntityChangeListener;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -8,19 +19,72 @@ public class GenericRepository<T> {
     
     private static final Logger logger = Logger.getLogger(GenericRepository.class.getName());
     
-    private final List<T> items;
+    private static final int MIN_HOLES_TO_COMPACT = 64;
+    private static final int LOCK_STRIPES = 64;
+    private static final AtomicLong REPOSITORY_IDS = new AtomicLong();
+    
+    private final long id;
     private final IdentityExtractor<T> identityExtractor;
-    private final Map<Object, T> identityMap;
+    private final boolean concurrent;
+    private final IdentityStore<T> identityMap;
+    private final Map<String, RepositoryIndex<T>> indexes;
+    private final Map<String, List<RepositoryIndex<T>>> fieldIndexes;
+    private final List<RepositoryIndex<T>> unscopedIndexes;
+    private final List<RepositoryIndex<T>> positionalIndexes;
+    private final Map<Comparator<?>, SortedIndex<T>> sortedViews;
+    private final ChangeTracker changeTracker;
+    private final List<ReferenceTracker<?>> referenceTrackers;
+    private final List<RepositoryListener<T>> repositoryListeners;
+    private volatile Set<String> identityFields;
+    private final ReentrantReadWriteLock writeGate;
+    private final ReentrantLock[] identityLocks;
+    private final ReentrantLock structureLock;
+    private final AtomicLong sequences;
+    private SlotTable<T> slots;
+    private volatile int live;
+    private volatile long version;
+    private long positionEpoch;
+    private volatile RepositorySnapshot<T> published;
+    private volatile ResultCache resultCache;
+    private volatile int parallelThreshold;
     
     public GenericRepository(IdentityExtractor<T> identityExtractor) {
+        this(identityExtractor, false);
+    }
+    
+    protected GenericRepository(IdentityExtractor<T> identityExtractor, boolean concurrent) {
+        this(identityExtractor, concurrent, new HashIdentityStore<>(concurrent));
+    }
+    
+    GenericRepository(IdentityExtractor<T> identityExtractor, boolean concurrent, IdentityStore<T> identityStore) {
         if (identityExtractor == null) {
             throw new IllegalArgumentException("Identity extractor cannot be null");
         }
-        this.items = new ArrayList<>();
+        this.id = REPOSITORY_IDS.incrementAndGet();
         this.identityExtractor = identityExtractor;
-        this.identityMap = new HashMap<>();
+        this.concurrent = concurrent;
+        this.identityMap = identityStore;
+        this.indexes = new ConcurrentHashMap<>();
+        this.fieldIndexes = new ConcurrentHashMap<>();
+        this.unscopedIndexes = new CopyOnWriteArrayList<>();
+        this.positionalIndexes = new CopyOnWriteArrayList<>();
+        this.sortedViews = new ConcurrentHashMap<>();
+        this.changeTracker = new ChangeTracker();
+        this.referenceTrackers = new CopyOnWriteArrayList<>();
+        this.repositoryListeners = new CopyOnWriteArrayList<>();
+        this.writeGate = concurrent ? new ReentrantReadWriteLock() : null;
+        this.identityLocks = concurrent ? newLocks(LOCK_STRIPES) : null;
+        this.structureLock = concurrent ? new ReentrantLock() : null;
+        this.sequences = new AtomicLong();
+        this.slots = new SlotTable<>();
+        this.published = new RepositorySnapshot<>(slots.freeze(), 0, 0, 0, 0, Map.of());
+        this.parallelThreshold = ScanPool.DEFAULT_THRESHOLD;
         
-        logger.log(Level.INFO, "GenericRepository initialized");
+        logger.log(Level.INFO, "GenericRepository initialized (concurrent: {0})", concurrent);
+    }
+    
+    public boolean isConcurrent() {
+        return concurrent;
     }
     
     public boolean add(T item) {
@@ -30,19 +94,135 @@ public class GenericRepository<T> {
         }
         
         Object identity = identityExtractor.extractIdentity(item);
+        int size;
         
-        if (identityMap.containsKey(identity)) {
-            logger.log(Level.WARNING, "Item with identity {0} already exists", identity);
-            return false;
+        lockIdentity(identity);
+        try {
+            Slot<T> slot = insert(identity, item);
+            if (slot == null) {
+                logger.log(Level.WARNING, "Item with identity {0} already exists", identity);
+                return false;
+            }
+            prepare(slot);
+            
+            lockStructure();
+            try {
+                place(slot);
+                size = live;
+                publish();
+            } finally {
+                unlockStructure();
+            }
+            for (RepositoryListener<T> listener : repositoryListeners) {
+                listener.added(item);
+            }
+        } finally {
+            unlockIdentity(identity);
         }
         
-        items.add(item);
-        identityMap.put(identity, item);
         logger.log(Level.INFO, "Item added successfully. Identity: {0}, Total items: {1}", 
-                   new Object[]{identity, items.size()});
+                   new Object[]{identity, size});
         return true;
     }
     
+    public int addAll(Stream<? extends T> items) {
+        int added = 0;
+        int skipped = 0;
+        
+        lockAll();
+        lockStructure();
+        try {
+            List<T> inserted = repositoryListeners.isEmpty() ? null : new ArrayList<>();
+            try {
+                Iterator<? extends T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    T item = iterator.next();
+                    Slot<T> slot = item == null ? null : insert(identityExtractor.extractIdentity(item), item);
+                    if (slot != null) {
+                        prepare(slot);
+                        place(slot);
+                        added++;
+                        if (inserted != null) {
+                            inserted.add(item);
+                        }
+                    } else {
+                        skipped++;
+                    }
+                }
+            } finally {
+                publish();
+                if (inserted != null) {
+                    for (T item : inserted) {
+                        for (RepositoryListener<T> listener : repositoryListeners) {
+                            listener.added(item);
+                        }
+                    }
+                }
+            }
+        } finally {
+            unlockStructure();
+            unlockAll();
+        }
+        
+        if (skipped > 0) {
+            logger.log(Level.WARNING, "Bulk insert skipped {0} null or duplicate items", skipped);
+        }
+        logger.log(Level.INFO, "Bulk insert added {0} items. Total items: {1}", new Object[]{added, live});
+        return added;
+    }
+    
+    private Slot<T> insert(Object identity, T item) {
+        Slot<T> slot = new Slot<>(identity, item, -1, sequences.getAndIncrement());
+        if (identityMap.putIfAbsent(identity, slot) != null) {
+            return null;
+        }
+        listen(item);
+        for (RepositoryIndex<T> index : indexes.values()) {
+            if (!index.positional()) {
+                index.add(slot);
+            }
+        }
+        return slot;
+    }
+    
+    private void prepare(Slot<T> slot) {
+        try {
+            for (RepositoryListener<T> listener : repositoryListeners) {
+                listener.adding(slot.item);
+            }
+        } catch (RuntimeException e) {
+            identityMap.remove(slot.identity);
+            for (RepositoryIndex<T> index : indexes.values()) {
+                if (!index.positional()) {
+                    index.remove(slot);
+                }
+            }
+            unlisten(slot.item);
+            throw e;
+        }
+    }
+    
+    private void place(Slot<T> slot) {
+        slot.position = slots.end();
+        slots.append(slot);
+        for (RepositoryIndex<T> index : positionalIndexes) {
+            index.add(slot);
+        }
+        live++;
+    }
+    
+    private void vacate(Slot<T> slot) {
+        slots.set(slot.position, null);
+        for (RepositoryIndex<T> index : positionalIndexes) {
+            index.remove(slot);
+        }
+        live--;
+        int holes = slots.end() - live;
+        if (holes >= MIN_HOLES_TO_COMPACT && holes > live) {
+            compact();
+        }
+    }
+    
     public boolean remove(T item) {
         if (item == null) {
             logger.log(Level.WARNING, "Attempt to remove null item");
@@ -50,22 +230,65 @@ public class GenericRepository<T> {
         }
         
         Object identity = identityExtractor.extractIdentity(item);
+        int size;
         
-        if (!identityMap.containsKey(identity)) {
-            logger.log(Level.WARNING, "Item with identity {0} not found for removal", identity);
-            return false;
+        lockIdentity(identity);
+        try {
+            Slot<T> slot = identityMap.get(identity);
+            if (slot == null) {
+                logger.log(Level.WARNING, "Item with identity {0} not found for removal", identity);
+                return false;
+            }
+            for (RepositoryListener<T> listener : repositoryListeners) {
+                listener.removing(slot.item);
+            }
+            identityMap.remove(identity);
+            for (RepositoryIndex<T> index : indexes.values()) {
+                if (!index.positional()) {
+                    index.remove(slot);
+                }
+            }
+            
+            lockStructure();
+            try {
+                vacate(slot);
+                size = live;
+                publish();
+            } finally {
+                unlockStructure();
+            }
+            unlisten(slot.item);
+            for (RepositoryListener<T> listener : repositoryListeners) {
+                listener.removed(slot.item);
+            }
+        } finally {
+            unlockIdentity(identity);
         }
         
-        items.remove(item);
-        identityMap.remove(identity);
         logger.log(Level.INFO, "Item removed successfully. Identity: {0}, Remaining items: {1}", 
-                   new Object[]{identity, items.size()});
+                   new Object[]{identity, size});
         return true;
     }
     
     public List<T> getAll() {
-        logger.log(Level.FINE, "Retrieving all items. Total: {0}", items.size());
-        return Collections.unmodifiableList(new ArrayList<>(items));
+        logger.log(Level.FINE, "Retrieving all items. Total: {0}", live);
+        return snapshot();
+    }
+    
+    public Stream<T> stream() {
+        return StreamSupport.stream(snapshot().spliterator(), false);
+    }
+    
+    public Iterator<T> iterator() {
+        return snapshot().iterator();
+    }
+    
+    public RepositorySnapshot<T> snapshot() {
+        return published;
+    }
+    
+    public long getVersion() {
+        return version;
     }
     
     public T findByIdentity(Object identity) {
@@ -74,7 +297,8 @@ public class GenericRepository<T> {
             return null;
         }
         
-        T found = identityMap.get(identity);
+        Slot<T> slot = identityMap.get(identity);
+        T found = slot == null ? null : slot.item;
         
         if (found != null) {
             logger.log(Level.FINE, "Item found by identity: {0}", identity);
@@ -86,27 +310,489 @@ public class GenericRepository<T> {
     }
     
     public int size() {
-        return items.size();
+        return live;
     }
     
     public boolean isEmpty() {
-        return items.isEmpty();
+        return live == 0;
     }
     
     public void clear() {
-        int size = items.size();
-        items.clear();
-        identityMap.clear();
+        int size;
+        
+        lockAll();
+        lockStructure();
+        try {
+            for (RepositoryListener<T> listener : repositoryListeners) {
+                listener.clearing();
+            }
+            size = live;
+            SlotTable<T> cleared = slots;
+            slots = new SlotTable<>();
+            live = 0;
+            positionEpoch++;
+            identityMap.clear();
+            for (RepositoryIndex<T> index : indexes.values()) {
+                index.clear();
+            }
+            for (int i = 0; i < cleared.end(); i++) {
+                Slot<T> slot = cleared.get(i);
+                if (slot != null) {
+                    unlisten(slot.item);
+                }
+            }
+            publish();
+            for (RepositoryListener<T> listener : repositoryListeners) {
+                listener.cleared();
+            }
+        } finally {
+            unlockStructure();
+            unlockAll();
+        }
+        
         logger.log(Level.INFO, "Repository cleared. Removed {0} items", size);
     }
     
+    public void addRepositoryListener(RepositoryListener<T> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Repository listener cannot be null");
+        }
+        repositoryListeners.add(listener);
+        logger.log(Level.FINE, "Repository listener registered");
+    }
+    
+    public void removeRepositoryListener(RepositoryListener<T> listener) {
+        repositoryListeners.remove(listener);
+    }
+    
+    public void registerIndex(String name, IndexKeyExtractor<T> keyExtractor, String... fields) {
+        attachIndex(name, new SecondaryIndex<>(name, keyExtractor, concurrent), fields);
+    }
+    
+    public void registerMultiIndex(String name, IndexKeyExtractor<T> keysExtractor, String... fields) {
+        attachIndex(name, new SecondaryIndex<>(name, keysExtractor, concurrent, true), fields);
+    }
+    
+    protected <R> void registerReferenceIndex(String name, String field, Function<? super T, ? extends R> reference, 
+                                              Function<? super R, ?> referenceKey) {
+        SecondaryIndex<T> index = new SecondaryIndex<>(name, item -> {
+            R referenced = reference.apply(item);
+            return referenced == null ? null : referenceKey.apply(referenced);
+        }, concurrent);
+        ReferenceTracker<R> tracker = new ReferenceTracker<>(field, index, reference, referenceKey);
+        
+        lockAll();
+        try {
+            attachIndex(name, index, field);
+            referenceTrackers.add(tracker);
+            for (int i = 0; i < slots.end(); i++) {
+                Slot<T> slot = slots.get(i);
+                if (slot != null) {
+                    tracker.watch(slot.item);
+                }
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    <I extends RepositoryIndex<T>> I attachIndex(String name, I index, String... fields) {
+        int size;
+        
+        lockAll();
+        lockStructure();
+        try {
+            if (indexes.containsKey(name)) {
+                throw new IllegalArgumentException("Index " + name + " is already registered");
+            }
+            
+            for (int i = 0; i < slots.end(); i++) {
+                Slot<T> slot = slots.get(i);
+                if (slot != null) {
+                    index.add(slot);
+                }
+            }
+            if (index.positional()) {
+                positionalIndexes.add(index);
+                publish();
+            }
+            indexes.put(name, index);
+            if (fields.length == 0) {
+                unscopedIndexes.add(index);
+            }
+            for (String field : fields) {
+                fieldIndexes.computeIfAbsent(field, f -> new CopyOnWriteArrayList<>()).add(index);
+            }
+            size = live;
+        } finally {
+            unlockStructure();
+            unlockAll();
+        }
+        
+        logger.log(Level.INFO, "Index {0} registered over {1} items", new Object[]{name, size});
+        return index;
+    }
+    
+    public void registerSortedView(String name, Comparator<? super T> comparator, String... fields) {
+        SortedIndex<T> view = attachIndex(name, new SortedIndex<>(name, comparator, concurrent), fields);
+        sortedViews.putIfAbsent(comparator, view);
+    }
+    
+    public List<T> findSorted(String name) {
+        logger.log(Level.FINE, "Listing sorted view {0}", name);
+        return getSortedView(name).list();
+    }
+    
+    public List<T> findSorted(String name, int offset, int limit) {
+        logger.log(Level.FINE, "Listing sorted view {0} from {1}, limit {2}", new Object[]{name, offset, limit});
+        return getSortedView(name).list(offset, limit);
+    }
+    
+    public void enableResultCache(int maxEntries) {
+        resultCache = new ResultCache(maxEntries);
+        logger.log(Level.INFO, "Result cache enabled with {0} entries", maxEntries);
+    }
+    
+    public void disableResultCache() {
+        resultCache = null;
+        logger.log(Level.INFO, "Result cache disabled");
+    }
+    
+    public boolean isResultCacheEnabled() {
+        return resultCache != null;
+    }
+    
+    public long getCacheHits() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.hits();
+    }
+    
+    public long getCacheMisses() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.misses();
+    }
+    
+    public long getCacheEvictions() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.evictions();
+    }
+    
+    @SuppressWarnings("unchecked")
+    protected <R> R cached(String query, Supplier<R> loader, Object... parameters) {
+        ResultCache cache = resultCache;
+        if (cache == null) {
+            return unmodifiable(loader.get());
+        }
+        
+        Object key = ResultCache.key(query, parameters);
+        long current = version;
+        Object value = cache.get(key, current);
+        if (value != null) {
+            logger.log(Level.FINE, "Result cache hit for {0}", query);
+            return (R) value;
+        }
+        
+        R result = unmodifiable(loader.get());
+        if (result != null) {
+            cache.put(key, current, result);
+        }
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <R> R unmodifiable(R result) {
+        if (result instanceof List<?> list) {
+            return (R) Collections.unmodifiableList(list);
+        }
+        if (result instanceof Set<?> set) {
+            return (R) Collections.unmodifiableSet(set);
+        }
+        if (result instanceof Map<?, ?> map) {
+            return (R) Collections.unmodifiableMap(map);
+        }
+        return result;
+    }
+    
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold cannot be negative");
+        }
+        this.parallelThreshold = parallelThreshold;
+        logger.log(Level.INFO, "Parallel scan threshold set to {0}", parallelThreshold);
+    }
+    
+    protected <R> R scan(Function<? super Stream<T>, ? extends R> query) {
+        RepositorySnapshot<T> snapshot = snapshot();
+        if (snapshot.size() < parallelThreshold) {
+            return query.apply(StreamSupport.stream(snapshot.spliterator(), false));
+        }
+        
+        Stream<T> stream = StreamSupport.stream(snapshot.spliterator(), true);
+        if (ScanPool.inPool()) {
+            return query.apply(stream);
+        }
+        logger.log(Level.FINE, "Running parallel scan over {0} items", snapshot.size());
+        return ScanPool.pool().submit(() -> query.apply(stream)).join();
+    }
+    
+    public Query<T> query() {
+        return new Query<>(this);
+    }
+    
+    RepositoryIndex<T> index(String name) {
+        RepositoryIndex<T> index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Index " + name + " is not registered");
+        }
+        return index;
+    }
+    
+    SortedIndex<T> sortedViewFor(Comparator<? super T> comparator) {
+        return comparator == null ? null : sortedViews.get(comparator);
+    }
+    
+    public List<T> findTop(Comparator<? super T> comparator, int limit) {
+        return findAfter(comparator, null, limit);
+    }
+    
+    public List<T> findAfter(Comparator<? super T> comparator, T after, int limit) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Comparator cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        
+        Slot<T> cursor = null;
+        if (after != null) {
+            cursor = identityMap.get(identityExtractor.extractIdentity(after));
+            if (cursor == null) {
+                cursor = new Slot<>(null, after, -1, Long.MAX_VALUE);
+            }
+        }
+        
+        SortedIndex<T> view = sortedViews.get(comparator);
+        if (view != null) {
+            logger.log(Level.FINE, "Paging {0} items from sorted view {1}", new Object[]{limit, view.getName()});
+            return cursor == null ? view.list(0, limit) : view.listAfter(cursor, limit);
+        }
+        
+        logger.log(Level.FINE, "Selecting {0} items with a bounded heap", limit);
+        return selectTop(comparator, cursor, limit);
+    }
+    
+    private List<T> selectTop(Comparator<? super T> comparator, Slot<T> cursor, int limit) {
+        if (limit == 0) {
+            return new ArrayList<>();
+        }
+        
+        Comparator<Slot<T>> order = (left, right) -> {
+            int result = comparator.compare(left.item, right.item);
+            return result != 0 ? result : Long.compare(left.sequence, right.sequence);
+        };
+        PriorityQueue<Slot<T>> heap = new PriorityQueue<>(Math.min(limit, 64) + 1, order.reversed());
+        snapshot().forEachSlot(slot -> {
+            if (cursor != null && order.compare(slot, cursor) <= 0) {
+                return;
+            }
+            if (heap.size() < limit) {
+                heap.add(slot);
+            } else if (order.compare(slot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        });
+        
+        List<T> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll().item);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    public boolean hasIndex(String name) {
+        return indexes.containsKey(name);
+    }
+    
+    public List<T> findByIndex(String name, Object key) {
+        logger.log(Level.FINE, "Looking up index {0} by key: {1}", new Object[]{name, key});
+        return getIndex(name).find(key);
+    }
+    
+    public Stream<T> streamByIndex(String name, Object key) {
+        return getIndex(name).stream(key);
+    }
+    
+    public Optional<T> findFirstByIndex(String name, Object key) {
+        return getIndex(name).findFirst(key);
+    }
+    
+    Object identityOf(T item) {
+        return identityExtractor.extractIdentity(item);
+    }
+    
+    public int countByIndex(String name, Object key) {
+        return getIndex(name).count(key);
+    }
+    
+    public <E extends Enum<E>> void registerBitmapIndex(String name, IndexKeyExtractor<T> keyExtractor, 
+                                                        Class<E> enumType, String... fields) {
+        attachIndex(name, new BitmapIndex<>(name, keyExtractor, enumType), fields);
+    }
+    
+    public Bitmap bitmap(String name, Enum<?>... values) {
+        Selection<T> selection = select(name, values);
+        return new Bitmap(selection.bits(), selection.snapshot().epoch());
+    }
+    
+    public Bitmap bitmapOf(Collection<? extends T> items) {
+        while (true) {
+            RepositorySnapshot<T> snapshot = published;
+            BitSet bits = new BitSet();
+            for (T item : items) {
+                Slot<T> slot = identityMap.get(identityExtractor.extractIdentity(item));
+                Slot<T> stored = slot == null ? null : snapshot.slotAt(slot.position);
+                if (stored != null && stored.item == item) {
+                    bits.set(slot.position);
+                }
+            }
+            if (published.epoch() == snapshot.epoch()) {
+                return new Bitmap(bits, snapshot.epoch());
+            }
+        }
+    }
+    
+    public List<T> findByBitmap(Bitmap bitmap) {
+        RepositorySnapshot<T> snapshot = published;
+        checkEpoch(bitmap, snapshot);
+        return resolve(bitmap.bits(), snapshot);
+    }
+    
+    public List<T> findByBitmap(String name, Enum<?>... values) {
+        Selection<T> selection = select(name, values);
+        return resolve(selection.bits(), selection.snapshot());
+    }
+    
+    public Stream<T> streamByBitmap(String name, Enum<?>... values) {
+        Selection<T> selection = select(name, values);
+        RepositorySnapshot<T> snapshot = selection.snapshot();
+        return selection.bits().stream()
+                .mapToObj(snapshot::slotAt)
+                .filter(Objects::nonNull)
+                .map(slot -> slot.item);
+    }
+    
+    public Optional<T> findFirstByBitmap(Bitmap bitmap) {
+        RepositorySnapshot<T> snapshot = published;
+        checkEpoch(bitmap, snapshot);
+        return resolveFirst(bitmap.bits(), snapshot);
+    }
+    
+    public Optional<T> findFirstByBitmap(String name, Enum<?>... values) {
+        Selection<T> selection = select(name, values);
+        return resolveFirst(selection.bits(), selection.snapshot());
+    }
+    
+    public int countByBitmap(String name, Enum<?> value) {
+        getBitmapIndex(name);
+        return published.bitmap(name).count(value);
+    }
+    
+    protected <R> R withStablePositions(Supplier<R> action) {
+        while (true) {
+            long epoch = published.epoch();
+            try {
+                R result = action.get();
+                if (published.epoch() == epoch) {
+                    return result;
+                }
+            } catch (IllegalStateException e) {
+                if (published.epoch() == epoch) {
+                    throw e;
+                }
+            }
+            logger.log(Level.FINE, "Storage was compacted during a positional read; retrying");
+        }
+    }
+    
+    private Selection<T> select(String name, Enum<?>[] values) {
+        getBitmapIndex(name);
+        RepositorySnapshot<T> snapshot = published;
+        return new Selection<>(snapshot.bitmap(name).union(values), snapshot);
+    }
+    
+    private List<T> resolve(BitSet bits, RepositorySnapshot<T> snapshot) {
+        List<T> result = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            Slot<T> slot = snapshot.slotAt(i);
+            if (slot != null) {
+                result.add(slot.item);
+            }
+        }
+        logger.log(Level.FINE, "Resolved bitmap to {0} items", result.size());
+        return result;
+    }
+    
+    private Optional<T> resolveFirst(BitSet bits, RepositorySnapshot<T> snapshot) {
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            Slot<T> slot = snapshot.slotAt(i);
+            if (slot != null) {
+                return Optional.of(slot.item);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    private void checkEpoch(Bitmap bitmap, RepositorySnapshot<T> snapshot) {
+        if (bitmap.epoch() != snapshot.epoch()) {
+            throw new IllegalStateException("Bitmap was taken before storage was compacted");
+        }
+    }
+    
+    BitmapIndex<T, ?> getBitmapIndex(String name) {
+        RepositoryIndex<T> index = indexes.get(name);
+        if (!(index instanceof BitmapIndex<T, ?> bitmapIndex)) {
+            throw new IllegalArgumentException("Bitmap index " + name + " is not registered");
+        }
+        return bitmapIndex;
+    }
+    
+    private SecondaryIndex<T> getIndex(String name) {
+        RepositoryIndex<T> index = indexes.get(name);
+        if (!(index instanceof SecondaryIndex<T> secondary)) {
+            throw new IllegalArgumentException("Index " + name + " is not registered");
+        }
+        return secondary;
+    }
+    
+    private SortedIndex<T> getSortedView(String name) {
+        RepositoryIndex<T> index = indexes.get(name);
+        if (!(index instanceof SortedIndex<T> sorted)) {
+            throw new IllegalArgumentException("Sorted view " + name + " is not registered");
+        }
+        return sorted;
+    }
+    
+    protected void setIdentityFields(String... fields) {
+        identityFields = Set.of(fields);
+    }
+    
+    protected static String foldCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+    
     public List<T> sortByIdentity(String order) {
         if (order == null || order.isEmpty()) {
             logger.log(Level.WARNING, "Sort order is null or empty, using default");
             order = "asc";
         }
         
-        List<T> sorted = new ArrayList<>(items);
+        List<T> sorted = new ArrayList<>(snapshot());
         
         if (sorted.isEmpty()) {
             logger.log(Level.FINE, "Repository is empty, nothing to sort");
@@ -122,16 +808,354 @@ public class GenericRepository<T> {
             sorted.sort(Collections.reverseOrder());
             logger.log(Level.INFO, "Sorted {0} items in descending order by identity", sorted.size());
         } else {
-            Collections.sort(sorted);
+            sorted.sort(null);
             logger.log(Level.INFO, "Sorted {0} items in ascending order by identity", sorted.size());
         }
         
         return sorted;
     }
     
+    @SuppressWarnings("unchecked")
+    private void listen(T item) {
+        if (item instanceof ChangeNotifier<?> notifier) {
+            ((ChangeNotifier<T>) notifier).addChangeListener(changeTracker);
+        }
+        for (ReferenceTracker<?> tracker : referenceTrackers) {
+            tracker.watch(item);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void unlisten(T item) {
+        if (item instanceof ChangeNotifier<?> notifier) {
+            ((ChangeNotifier<T>) notifier).removeChangeListener(changeTracker);
+        }
+        for (ReferenceTracker<?> tracker : referenceTrackers) {
+            tracker.release(item);
+        }
+    }
+    
+    private ChangeFrame<T> detach(List<Slot<T>> changed, String field, boolean notify) {
+        boolean rekeying = affectsIdentity(field);
+        lockStructure();
+        try {
+            for (Slot<T> slot : changed) {
+                if (rekeying) {
+                    identityMap.remove(slot.identity);
+                }
+                for (RepositoryIndex<T> index : fieldIndexes.getOrDefault(field, List.of())) {
+                    index.remove(slot);
+                }
+                for (RepositoryIndex<T> index : unscopedIndexes) {
+                    index.remove(slot);
+                }
+            }
+        } finally {
+            unlockStructure();
+        }
+        for (ReferenceTracker<?> tracker : referenceTrackers) {
+            if (tracker.field.equals(field)) {
+                tracker.capture(changed);
+            }
+        }
+        Object previousIdentity = notify && !changed.isEmpty() ? changed.get(0).identity : null;
+        return new ChangeFrame<>(changed, field, rekeying, previousIdentity, false);
+    }
+    
+    private boolean accepts(ChangeFrame<T> frame) {
+        if (!frame.rekeying()) {
+            return true;
+        }
+        Set<Object> identities = new HashSet<>();
+        for (Slot<T> slot : frame.changed()) {
+            Object identity = identityExtractor.extractIdentity(slot.item);
+            if (identityMap.containsKey(identity) || !identities.add(identity)) {
+                logger.log(Level.WARNING, "Change of {0} collides with existing identity {1}", 
+                           new Object[]{frame.field(), identity});
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private ChangeFrame<T> commit(ChangeFrame<T> frame) {
+        if (frame.previousIdentity() != null) {
+            for (Slot<T> slot : frame.changed()) {
+                for (RepositoryListener<T> listener : repositoryListeners) {
+                    listener.changing(slot.item, frame.previousIdentity(), frame.field());
+                }
+            }
+        }
+        return new ChangeFrame<>(frame.changed(), frame.field(), frame.rekeying(), frame.previousIdentity(), true);
+    }
+    
+    private void attach(ChangeFrame<T> frame) {
+        List<Slot<T>> changed = frame.changed();
+        if (changed.isEmpty()) {
+            return;
+        }
+        
+        lockStructure();
+        try {
+            if (frame.rekeying()) {
+                for (int i = 0; i < changed.size(); i++) {
+                    Slot<T> slot = changed.get(i);
+                    Object identity = identityExtractor.extractIdentity(slot.item);
+                    slot = new Slot<>(identity, slot.item, slot.position, slot.sequence);
+                    slots.set(slot.position, slot);
+                    identityMap.put(identity, slot);
+                    changed.set(i, slot);
+                }
+            }
+            for (Slot<T> slot : changed) {
+                for (RepositoryIndex<T> index : fieldIndexes.getOrDefault(frame.field(), List.of())) {
+                    index.add(slot);
+                }
+                for (RepositoryIndex<T> index : unscopedIndexes) {
+                    index.add(slot);
+                }
+            }
+            publish();
+        } finally {
+            unlockStructure();
+        }
+        for (ReferenceTracker<?> tracker : referenceTrackers) {
+            if (tracker.field.equals(frame.field())) {
+                tracker.settle(changed);
+            }
+        }
+        
+        if (frame.committed() && frame.previousIdentity() != null) {
+            for (Slot<T> slot : changed) {
+                for (RepositoryListener<T> listener : repositoryListeners) {
+                    listener.changed(slot.item, frame.previousIdentity(), frame.field());
+                }
+            }
+        }
+        
+        logger.log(Level.FINE, "Re-indexed {0} items after change of {1}", new Object[]{changed.size(), frame.field()});
+    }
+    
+    private boolean affectsIdentity(String field) {
+        Set<String> fields = identityFields;
+        return fields == null || fields.contains(field);
+    }
+    
+    private void publish() {
+        version++;
+        published = new RepositorySnapshot<>(slots.freeze(), slots.end(), live, version, positionEpoch, freezeBitmaps());
+    }
+    
+    private Map<String, BitmapIndex.Frozen> freezeBitmaps() {
+        if (positionalIndexes.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, BitmapIndex.Frozen> bitmaps = new HashMap<>();
+        for (RepositoryIndex<T> index : positionalIndexes) {
+            if (index instanceof BitmapIndex<T, ?> bitmapIndex) {
+                bitmaps.put(bitmapIndex.getName(), bitmapIndex.freeze());
+            }
+        }
+        return bitmaps;
+    }
+    
+    private void compact() {
+        int previous = slots.end();
+        slots = slots.compacted();
+        logger.log(Level.FINE, "Compacted storage from {0} to {1} slots", new Object[]{previous, slots.end()});
+        positionEpoch++;
+        for (RepositoryIndex<T> index : indexes.values()) {
+            index.compacted(slots);
+        }
+    }
+    
+    private void lockIdentity(Object identity) {
+        if (writeGate != null) {
+            writeGate.readLock().lock();
+            identityLocks[stripe(identity)].lock();
+        }
+    }
+    
+    private void unlockIdentity(Object identity) {
+        if (writeGate != null) {
+            identityLocks[stripe(identity)].unlock();
+            writeGate.readLock().unlock();
+        }
+    }
+    
+    private int stripe(Object identity) {
+        int hash = identityMap.hash(identity);
+        return (hash ^ (hash >>> 16)) & (identityLocks.length - 1);
+    }
+    
+    private void lockAll() {
+        if (writeGate != null) {
+            writeGate.writeLock().lock();
+        }
+    }
+    
+    private void unlockAll() {
+        if (writeGate != null) {
+            writeGate.writeLock().unlock();
+        }
+    }
+    
+    void awaitWriters() {
+        lockAll();
+        unlockAll();
+    }
+    
+    private void lockStructure() {
+        if (structureLock != null) {
+            structureLock.lock();
+        }
+    }
+    
+    private void unlockStructure() {
+        if (structureLock != null) {
+            structureLock.unlock();
+        }
+    }
+    
+    private static ReentrantLock[] newLocks(int count) {
+        ReentrantLock[] locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+    
     @Override
     public String toString() {
-        return "GenericRepository{size=" + items.size() + "}";
+        return "GenericRepository{size=" + live + "}";
+    }
+    
+    private record Selection<T>(BitSet bits, RepositorySnapshot<T> snapshot) {}
+    
+    private record ChangeFrame<T>(List<Slot<T>> changed, String field, boolean rekeying, Object previousIdentity,
+                                  boolean committed) {}
+    
+    private abstract class Tracker<E> implements EntityChangeListener<E> {
+        
+        private final Deque<ChangeFrame<T>> frames = new ArrayDeque<>();
+        
+        abstract ChangeFrame<T> detachFor(E entity, String field);
+        
+        @Override
+        public void beforeChange(E entity, String field) {
+            lockAll();
+            try {
+                frames.push(detachFor(entity, field));
+            } catch (RuntimeException e) {
+                unlockAll();
+                throw e;
+            }
+        }
+        
+        @Override
+        public boolean acceptChange(E entity, String field) {
+            return accepts(frames.peek());
+        }
+        
+        @Override
+        public void commitChange(E entity, String field) {
+            ChangeFrame<T> committed = commit(frames.peek());
+            frames.pop();
+            frames.push(committed);
+        }
+        
+        @Override
+        public void afterChange(E entity, String field) {
+            try {
+                attach(frames.pop());
+            } finally {
+                unlockAll();
+            }
+        }
+        
+        @Override
+        public long changeOrder() {
+            return id;
+        }
+    }
+    
+    private final class ChangeTracker extends Tracker<T> {
+        
+        @Override
+        ChangeFrame<T> detachFor(T entity, String field) {
+            List<Slot<T>> changed = new ArrayList<>(1);
+            Slot<T> slot = identityMap.get(identityExtractor.extractIdentity(entity));
+            if (slot != null && slot.item == entity) {
+                changed.add(slot);
+            }
+            return detach(changed, field, true);
+        }
+    }
+    
+    private final class ReferenceTracker<R> extends Tracker<R> {
+        
+        private final String field;
+        private final SecondaryIndex<T> index;
+        private final Function<? super T, ? extends R> reference;
+        private final Function<? super R, ?> referenceKey;
+        private final Deque<List<R>> captured;
+        
+        ReferenceTracker(String field, SecondaryIndex<T> index, Function<? super T, ? extends R> reference, 
+                         Function<? super R, ?> referenceKey) {
+            this.field = field;
+            this.index = index;
+            this.reference = reference;
+            this.referenceKey = referenceKey;
+            this.captured = new ArrayDeque<>();
+        }
+        
+        @Override
+        ChangeFrame<T> detachFor(R referenced, String referencedField) {
+            List<Slot<T>> changed = new ArrayList<>();
+            for (T item : index.find(referenceKey.apply(referenced))) {
+                Slot<T> slot = identityMap.get(identityExtractor.extractIdentity(item));
+                if (slot != null && slot.item == item) {
+                    changed.add(slot);
+                }
+            }
+            return detach(changed, field, false);
+        }
+        
+        void capture(List<Slot<T>> changed) {
+            List<R> previous = new ArrayList<>(changed.size());
+            for (Slot<T> slot : changed) {
+                previous.add(reference.apply(slot.item));
+            }
+            captured.push(previous);
+        }
+        
+        void settle(List<Slot<T>> changed) {
+            List<R> previous = captured.pop();
+            for (Slot<T> slot : changed) {
+                watch(slot.item);
+            }
+            for (R referenced : previous) {
+                releaseReference(referenced);
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        void watch(T item) {
+            if (reference.apply(item) instanceof ChangeNotifier<?> notifier) {
+                ((ChangeNotifier<R>) notifier).addChangeListener(this);
+            }
+        }
+        
+        void release(T item) {
+            releaseReference(reference.apply(item));
+        }
+        
+        @SuppressWarnings("unchecked")
+        private void releaseReference(R referenced) {
+            if (referenced instanceof ChangeNotifier<?> notifier && index.count(referenceKey.apply(referenced)) == 0) {
+                ((ChangeNotifier<R>) notifier).removeChangeListener(this);
+            }
+        }
     }
-}
 
+}
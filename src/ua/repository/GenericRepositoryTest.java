@@ -2,8 +2,17 @@ package ua.repository;
 
 import ua.library.*;
 import ua.enums.*;
+import ua.util.InvalidDataException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GenericRepositoryTest {
     
@@ -21,6 +30,19 @@ public class GenericRepositoryTest {
         testDuplicateHandling();
         testNullHandling();
         testEmptyRepository();
+        testSecondaryIndex();
+        testRemovalKeepsOrder();
+        testSnapshotIsolation();
+        testConcurrentRepository();
+        testEntityChangeTracking();
+        testResultCache();
+        testParallelScan();
+        testReferenceIndexes();
+        testChangeLockOrder();
+        testDroppedRepositories();
+        testVetoedMutations();
+        testBitmapIndexes();
+        testMappedRecordStore();
         
         System.out.println("\n=== TEST RESULTS ===");
         System.out.println("Passed: " + testsPassed);
@@ -175,6 +197,16 @@ public class GenericRepositoryTest {
         
         assertFalse(repo.add(book1), "Should not add same book twice");
         
+        for (boolean concurrent : new boolean[]{false, true}) {
+            BookRepository books = new BookRepository(concurrent);
+            Book isbn10 = Book.of("Isbn Ten", author, "0306406152", BookStatus.AVAILABLE);
+            Book isbn13 = Book.of("Isbn Thirteen", author, "9780306406157", BookStatus.AVAILABLE);
+            assertTrue(books.add(isbn10), "Should add the ISBN-10 book (concurrent: " + concurrent + ")");
+            assertFalse(books.add(isbn13), "Equivalent ISBN-13 should be a duplicate (concurrent: " + concurrent + ")");
+            assertTrue(books.findByIdentity("978-0-306-40615-7") == isbn10, 
+                       "ISBN lookups should normalize the same way (concurrent: " + concurrent + ")");
+        }
+        
         System.out.println("Duplicate Handling tests passed\n");
     }
     
@@ -209,6 +241,810 @@ public class GenericRepositoryTest {
         System.out.println("Empty Repository tests passed\n");
     }
     
+    private static void testSecondaryIndex() {
+        System.out.println("--- Test: Secondary Index ---");
+        
+        GenericRepository<Book> repo = new GenericRepository<>(
+            book -> book.getIsbn()
+        );
+        
+        Author author = Author.of("Test", "Author", 1980);
+        Book book1 = Book.of("Book 1", author, "1111111111", BookStatus.AVAILABLE);
+        Book book2 = Book.of("Book 2", author, "2222222222", BookStatus.CHECKED_OUT);
+        Book book3 = Book.of("Book 3", author, "3333333333", BookStatus.AVAILABLE);
+        
+        repo.add(book1);
+        repo.add(book2);
+        repo.registerIndex("status", Book::getStatus);
+        repo.add(book3);
+        
+        assertTrue(repo.hasIndex("status"), "Index should be registered");
+        List<Book> available = repo.findByIndex("status", BookStatus.AVAILABLE);
+        assertEquals(2, available.size(), "Index should cover items added before and after registration");
+        assertEquals(book1, available.get(0), "Index should keep insertion order");
+        assertEquals(1, repo.countByIndex("status", BookStatus.CHECKED_OUT), "Should count 1 CHECKED_OUT book");
+        
+        repo.remove(book1);
+        assertEquals(book3, repo.findFirstByIndex("status", BookStatus.AVAILABLE).orElse(null),
+                     "Removed item should leave the index");
+        
+        repo.clear();
+        assertEquals(0, repo.countByIndex("status", BookStatus.AVAILABLE), "Index should be empty after clear");
+        assertTrue(repo.findByIndex("status", null).isEmpty(), "Null key should match nothing");
+        
+        System.out.println("Secondary Index tests passed\n");
+    }
+    
+    private static void testRemovalKeepsOrder() {
+        System.out.println("--- Test: Removal Keeps Order ---");
+        
+        GenericRepository<Integer> repo = new GenericRepository<>(value -> value);
+        for (int i = 0; i < 500; i++) {
+            repo.add(i);
+        }
+        for (int i = 0; i < 500; i += 2) {
+            repo.remove(i);
+        }
+        repo.add(1000);
+        
+        List<Integer> all = repo.getAll();
+        assertEquals(251, all.size(), "Should keep 250 odd values plus the new one");
+        assertEquals(1, all.get(0).intValue(), "First remaining item should be 1");
+        assertEquals(499, all.get(249).intValue(), "Order should survive storage compaction");
+        assertEquals(1000, all.get(250).intValue(), "New item should be appended last");
+        assertNotNull(repo.findByIdentity(333), "Identity lookup should survive compaction");
+        assertNull(repo.findByIdentity(334), "Removed item should not be found");
+        
+        System.out.println("Removal Keeps Order tests passed\n");
+    }
+    
+    private static void testSnapshotIsolation() {
+        System.out.println("--- Test: Snapshot Isolation ---");
+        
+        GenericRepository<Integer> repo = new GenericRepository<>(value -> value);
+        for (int i = 0; i < 10; i++) {
+            repo.add(i);
+        }
+        
+        RepositorySnapshot<Integer> before = repo.snapshot();
+        assertTrue(before == repo.getAll(), "Reads between writes should share one snapshot");
+        
+        repo.remove(3);
+        repo.add(42);
+        
+        assertEquals(10, before.size(), "Old snapshot should keep its size");
+        assertEquals(3, before.get(3).intValue(), "Old snapshot should still see removed item");
+        assertFalse(before.contains(42), "Old snapshot should not see later additions");
+        
+        List<Integer> after = repo.getAll();
+        assertEquals(10, after.size(), "New snapshot should see both mutations");
+        assertEquals(4, after.get(3).intValue(), "New snapshot should skip removed item");
+        assertEquals(42, after.get(9).intValue(), "New snapshot should see added item");
+        assertTrue(repo.getVersion() > before.getVersion(), "Mutations should publish a new version");
+        
+        GenericRepository<Integer> large = new ConcurrentGenericRepository<>(value -> value);
+        for (int i = 0; i < 5000; i++) {
+            large.add(i);
+        }
+        RepositorySnapshot<Integer> full = large.snapshot();
+        large.remove(10);
+        large.remove(4000);
+        assertEquals(5000, full.size(), "Old snapshot should keep every chunk it saw");
+        assertEquals(4000, full.get(4000).intValue(), "Old snapshot should keep items of copied chunks");
+        assertEquals(4001, large.getAll().get(3999).intValue(), "New snapshot should skip items removed from later chunks");
+        
+        int[] seen = {-1};
+        large.addRepositoryListener(new RepositoryListener<>() {
+            @Override
+            public void added(Integer item) {
+                seen[0] = large.getAll().size();
+            }
+            
+            @Override
+            public void removed(Integer item) {
+                seen[0] = large.getAll().size();
+            }
+            
+            @Override
+            public void changed(Integer item, Object previousIdentity, String field) {
+            }
+            
+            @Override
+            public void cleared() {
+            }
+        });
+        large.remove(20);
+        assertEquals(4997, seen[0], "Listeners should read the snapshot published by the removal");
+        large.add(20);
+        assertEquals(4998, seen[0], "Listeners should read the snapshot published by the addition");
+        
+        System.out.println("Snapshot Isolation tests passed\n");
+    }
+    
+    private static void testConcurrentRepository() {
+        System.out.println("--- Test: Concurrent Repository ---");
+        
+        ConcurrentGenericRepository<Integer> repo = new ConcurrentGenericRepository<>(value -> value);
+        repo.registerIndex("parity", value -> value % 2);
+        
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger readErrors = new AtomicInteger();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    if (repo.add(i)) {
+                        added.incrementAndGet();
+                    }
+                    if (i % 3 == 0) {
+                        repo.remove(i);
+                    }
+                }
+            });
+        }
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                List<Integer> all = repo.getAll();
+                int seen = 0;
+                for (Integer value : all) {
+                    if (value == null) {
+                        readErrors.incrementAndGet();
+                    }
+                    seen++;
+                }
+                if (seen != all.size()) {
+                    readErrors.incrementAndGet();
+                }
+            }
+        });
+        
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        reader.start();
+        try {
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        assertTrue(added.get() >= 2000, "Every identity should be added at least once");
+        assertEquals(0, readErrors.get(), "Snapshots should stay consistent under concurrent writes");
+        for (int i = 0; i < 2000; i++) {
+            boolean expected = i % 3 != 0;
+            if ((repo.findByIdentity(i) != null) != expected) {
+                assertTrue(false, "Unexpected presence of " + i);
+            }
+        }
+        assertEquals(repo.size(), repo.getAll().size(), "Size should match the published snapshot");
+        assertEquals(repo.size(), repo.countByIndex("parity", 0) + repo.countByIndex("parity", 1),
+                     "Index should match repository contents");
+        
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        repo.addRepositoryListener(new RepositoryListener<>() {
+            @Override
+            public void added(Integer item) {
+            }
+            
+            @Override
+            public void removed(Integer item) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            
+            @Override
+            public void changed(Integer item, Object previousIdentity, String field) {
+            }
+            
+            @Override
+            public void cleared() {
+            }
+        });
+        int before = repo.size();
+        Thread blockedWriter = new Thread(() -> repo.remove(1));
+        blockedWriter.start();
+        int[] observed = {-1};
+        Thread blockedReader = new Thread(() -> observed[0] = repo.getAll().size());
+        try {
+            entered.await(5, TimeUnit.SECONDS);
+            blockedReader.start();
+            blockedReader.join(2000);
+            assertFalse(blockedReader.isAlive(), "Readers should not wait for a writer holding the structure lock");
+            assertEquals(before - 1, observed[0], "Readers should see the last published snapshot");
+            Thread otherWriter = new Thread(() -> repo.add(5001));
+            otherWriter.start();
+            otherWriter.join(2000);
+            assertFalse(otherWriter.isAlive(), "Writers of other identities should not wait for a blocked writer");
+            assertTrue(repo.findByIdentity(5001) != null, "Writer of another identity should complete");
+            release.countDown();
+            blockedWriter.join();
+            blockedReader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        System.out.println("Concurrent Repository tests passed\n");
+    }
+    
+    private static void testEntityChangeTracking() {
+        System.out.println("--- Test: Entity Change Tracking ---");
+        
+        BookRepository repo = new BookRepository();
+        Author author = Author.of("Test", "Author", 1950);
+        Book first = Book.of("First Book", author, "1111111111", BookStatus.AVAILABLE);
+        Book second = Book.of("Second Book", author, "2222222222", BookStatus.AVAILABLE);
+        repo.add(first);
+        repo.add(second);
+        long version = repo.getVersion();
+        
+        first.setStatus(BookStatus.CHECKED_OUT);
+        assertEquals(1, repo.findByStatus(BookStatus.AVAILABLE).size(), "Status index should follow setter");
+        assertEquals(first, repo.findFirstByStatus(BookStatus.CHECKED_OUT).orElse(null), "Changed book should be re-indexed");
+        assertTrue(repo.getVersion() > version, "Changes should publish a new version");
+        
+        first.setTitle("Renamed");
+        assertEquals(1, repo.findByTitle("renamed").size(), "Title index should follow setter");
+        assertEquals(0, repo.findByTitleContains("First").size(), "Text index should drop the old title");
+        
+        first.setIsbn("3333333333");
+        assertTrue(repo.findByIdentity("1111111111") == null, "Old ISBN should no longer resolve");
+        assertTrue(repo.findByIdentity("3333333333") == first, "New ISBN should resolve to the same book");
+        assertEquals(0, repo.getAll().indexOf(first), "Re-keyed book should keep its position");
+        
+        boolean rejected = false;
+        try {
+            first.setIsbn("2222222222");
+        } catch (InvalidDataException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "Colliding ISBN should be rejected");
+        assertEquals("3333333333", first.getIsbn(), "Rejected change should be reverted");
+        assertTrue(repo.findByIdentity("3333333333") == first, "Rejected change should keep the old key");
+        assertTrue(repo.findByIdentity("2222222222") == second, "Rejected change should not disturb the other book");
+        
+        repo.remove(first);
+        first.setStatus(BookStatus.LOST);
+        assertEquals(0, repo.findByStatus(BookStatus.LOST).size(), "Removed books should no longer be tracked");
+        
+        MembershipRepository memberships = new MembershipRepository();
+        Reader reader = Reader.of("Reader", "One", "RD11111");
+        LocalDate start = LocalDate.now().minusMonths(1);
+        Membership membership = Membership.of(reader, start, start.plusYears(1), MembershipType.STANDARD);
+        memberships.add(membership);
+        membership.setType(MembershipType.PREMIUM);
+        assertEquals(1, memberships.findByType(MembershipType.PREMIUM).size(), "Type index should follow setter");
+        membership.setStartDate(start.minusDays(10));
+        assertTrue(memberships.findMembership(reader, start.minusDays(10)) == membership, "Membership should be re-keyed");
+        assertTrue(memberships.findMembership(reader, start) == null, "Old membership key should be released");
+        
+        System.out.println("Entity Change Tracking tests passed\n");
+    }
+    
+    private static void testResultCache() {
+        System.out.println("--- Test: Result Cache ---");
+        
+        BookRepository repo = new BookRepository();
+        Author author = Author.of("Test", "Author", 1950);
+        Book first = Book.of("First Book", author, "1111111111", BookStatus.AVAILABLE);
+        repo.add(first);
+        
+        List<Book> uncached = repo.findByStatus(BookStatus.AVAILABLE);
+        assertTrue(uncached != repo.findByStatus(BookStatus.AVAILABLE), "Cache should be off by default");
+        assertEquals(0, (int) repo.getCacheHits(), "Disabled cache should not count hits");
+        boolean uncachedFrozen = false;
+        try {
+            uncached.clear();
+        } catch (UnsupportedOperationException e) {
+            uncachedFrozen = true;
+        }
+        assertTrue(uncachedFrozen, "Results should be read-only with the cache disabled");
+        
+        repo.enableResultCache(2);
+        List<Book> available = repo.findByStatus(BookStatus.AVAILABLE);
+        assertTrue(available == repo.findByStatus(BookStatus.AVAILABLE), "Repeated read should be served from cache");
+        assertEquals(1, (int) repo.getCacheHits(), "Second read should be a hit");
+        assertEquals(1, (int) repo.getCacheMisses(), "First read should be a miss");
+        
+        boolean frozen = false;
+        try {
+            available.clear();
+        } catch (UnsupportedOperationException e) {
+            frozen = true;
+        }
+        assertTrue(frozen, "Cached lists should be read-only");
+        
+        repo.add(Book.of("Second Book", author, "2222222222", BookStatus.AVAILABLE));
+        assertEquals(2, repo.findByStatus(BookStatus.AVAILABLE).size(), "Add should invalidate cached results");
+        first.setStatus(BookStatus.LOST);
+        assertEquals(1, repo.findByStatus(BookStatus.AVAILABLE).size(), "Entity changes should invalidate cached results");
+        assertEquals(1, repo.findByStatus(BookStatus.LOST).size(), "Parameters should be part of the key");
+        
+        repo.countByStatus();
+        repo.getAllTitles();
+        assertTrue(repo.getCacheEvictions() > 0, "Cache should stay within its size bound");
+        
+        repo.disableResultCache();
+        assertTrue(!repo.isResultCacheEnabled(), "Cache should be disabled again");
+        frozen = false;
+        try {
+            repo.countByStatus().clear();
+        } catch (UnsupportedOperationException e) {
+            frozen = true;
+        }
+        assertTrue(frozen, "Counts should be read-only with the cache disabled");
+        
+        System.out.println("Result Cache tests passed\n");
+    }
+    
+    private static void testParallelScan() {
+        System.out.println("--- Test: Parallel Scan ---");
+        
+        AuthorRepository repo = new AuthorRepository();
+        for (int i = 0; i < 5000; i++) {
+            repo.add(Author.of("Name" + i, "Surname" + i, 1000 + i % 1000));
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            repo.remove(Author.of("Name" + i, "Surname" + i, 1000 + i % 1000));
+        }
+        
+        List<String> sequential = repo.getAllLastNames();
+        double sequentialAverage = repo.getAverageBirthYear();
+        repo.setParallelThreshold(0);
+        List<String> parallel = repo.getAllLastNames();
+        
+        assertEquals(sequential, parallel, "Parallel scan should keep repository order");
+        assertEquals(repo.size(), parallel.size(), "Parallel scan should skip removed slots");
+        assertTrue(Math.abs(sequentialAverage - repo.getAverageBirthYear()) < 1e-9, "Parallel aggregate should match");
+        assertEquals(repo.size(), repo.findByBirthYearRange(1000, 1999).size(), "Parallel filters should see every live item");
+        String worker = repo.scan(items -> Thread.currentThread().getName());
+        assertTrue(worker.startsWith("repository-scan-"), "Large scans should run in the dedicated pool");
+        
+        System.out.println("Parallel Scan tests passed\n");
+    }
+    
+    private static void testReferenceIndexes() {
+        System.out.println("--- Test: Reference Indexes ---");
+        
+        Author tolkien = Author.of("John", "Tolkien", 1892);
+        Author lewis = Author.of("Clive", "Lewis", 1898);
+        Book hobbit = Book.of("The Hobbit", tolkien, "1111111111", BookStatus.CHECKED_OUT);
+        Book inklings = Book.of("Inklings", List.of(tolkien, lewis), "2222222222", BookStatus.CHECKED_OUT);
+        Reader alice = Reader.of("Alice", "Smith", "RD11111");
+        Reader bob = Reader.of("Bob", "Jones", "RD22222");
+        
+        BookRepository books = new BookRepository();
+        books.add(hobbit);
+        books.add(inklings);
+        assertEquals(2, books.findByAuthor(tolkien).size(), "Multi-author books should be indexed under each author");
+        assertEquals(List.of(inklings), books.findByAuthor(lewis), "Author lookup should be exact");
+        
+        LoanRepository loans = new LoanRepository();
+        LocalDate issued = LocalDate.now().minusDays(3);
+        Loan first = Loan.of(hobbit, alice, issued, issued.plusDays(14));
+        Loan second = Loan.of(inklings, alice, issued, issued.plusDays(14));
+        Loan third = Loan.of(hobbit, bob, issued, issued.plusDays(14));
+        loans.add(first);
+        loans.add(second);
+        loans.add(third);
+        assertEquals(2, loans.findByReader(alice).size(), "Reader lookup should use the reader identity");
+        assertEquals(2, loans.findByReader(Reader.of("Alicia", "Smith", "RD11111")).size(), "Reader identity should be the reader id");
+        assertEquals(List.of(first, third), loans.findByBook(hobbit), "Book lookup should keep repository order");
+        
+        hobbit.setIsbn("3333333333");
+        assertEquals(2, loans.findByBook(hobbit).size(), "Book re-key should move its loans");
+        assertTrue(loans.findLoan(hobbit, alice, issued) == first, "Loan identity should follow the book ISBN");
+        assertEquals(2, books.findByAuthor(tolkien).size(), "Book repository should still resolve the book");
+        
+        hobbit.setTitle("A Hobbit");
+        assertEquals("A Hobbit", loans.sortByBookTitle().get(0).getBook().getTitle(), "Book title change should reorder loans");
+        
+        loans.remove(first);
+        loans.remove(third);
+        hobbit.setIsbn("4444444444");
+        assertEquals(0, loans.findByBook(hobbit).size(), "Released books should no longer be tracked");
+        
+        MembershipRepository memberships = new MembershipRepository();
+        memberships.add(Membership.of(alice, issued, issued.plusYears(1), MembershipType.STANDARD));
+        memberships.add(Membership.of(bob, issued, issued.plusYears(1), MembershipType.PREMIUM));
+        assertEquals(1, memberships.findByReader(alice).size(), "Membership lookup should use the reader identity");
+        
+        System.out.println("Reference Indexes tests passed\n");
+    }
+    
+    private static void testDroppedRepositories() {
+        System.out.println("--- Test: Dropped Repositories ---");
+        
+        Author author = Author.of("Ursula", "Le Guin", 1929);
+        Reader reader = Reader.of("Jane", "Smith", "RD44444");
+        Book book = Book.of("The Dispossessed", author, "0061054887", BookStatus.AVAILABLE);
+        Loan loan = Loan.of(book, reader, LocalDate.now(), LocalDate.now().plusDays(14));
+        BookRepository kept = new BookRepository();
+        kept.add(book);
+        
+        List<WeakReference<GenericRepository<?>>> dropped = dropRepositoriesHolding(book, loan);
+        for (int attempt = 0; attempt < 50 && dropped.stream().anyMatch(ref -> ref.get() != null); attempt++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        assertNull(dropped.get(0).get(), "A book repository dropped while holding items should be collected");
+        assertNull(dropped.get(1).get(), "A loan repository dropped while watching books should be collected");
+        
+        book.setStatus(BookStatus.CHECKED_OUT);
+        assertEquals(1, kept.findByStatus(BookStatus.CHECKED_OUT).size(), "Live repositories should keep tracking changes");
+        
+        System.out.println("Dropped Repositories tests passed\n");
+    }
+    
+    private static List<WeakReference<GenericRepository<?>>> dropRepositoriesHolding(Book book, Loan loan) {
+        BookRepository books = new BookRepository();
+        LoanRepository loans = new LoanRepository();
+        books.add(book);
+        loans.add(loan);
+        return List.of(new WeakReference<>(books), new WeakReference<>(loans));
+    }
+    
+    private static void testVetoedMutations() {
+        System.out.println("--- Test: Vetoed Mutations ---");
+        
+        Author author = Author.of("Test", "Author", 1950);
+        Book kept = Book.of("Kept", author, "1111111111", BookStatus.AVAILABLE);
+        Book rejected = Book.of("Rejected", author, "2222222222", BookStatus.AVAILABLE);
+        BookRepository repo = new BookRepository(true);
+        repo.add(kept);
+        
+        boolean[] veto = {true};
+        AtomicInteger published = new AtomicInteger();
+        repo.addRepositoryListener(new RepositoryListener<>() {
+            @Override
+            public void adding(Book item) {
+                check();
+            }
+            
+            @Override
+            public void removing(Book item) {
+                check();
+            }
+            
+            @Override
+            public void changing(Book item, Object previousIdentity, String field) {
+                check();
+            }
+            
+            @Override
+            public void clearing() {
+                check();
+            }
+            
+            private void check() {
+                if (veto[0]) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+            }
+            
+            @Override
+            public void added(Book item) {
+                published.incrementAndGet();
+            }
+            
+            @Override
+            public void removed(Book item) {
+                published.incrementAndGet();
+            }
+            
+            @Override
+            public void changed(Book item, Object previousIdentity, String field) {
+                published.incrementAndGet();
+            }
+            
+            @Override
+            public void cleared() {
+                published.incrementAndGet();
+            }
+        });
+        
+        assertTrue(failsToCommit(() -> repo.add(rejected)), "A vetoed add should fail");
+        assertNull(repo.findByIdentity("2222222222"), "A vetoed add should leave no identity behind");
+        assertEquals(0, repo.findByTitleContains("Rejected").size(), "A vetoed add should leave no index entries behind");
+        assertTrue(failsToCommit(() -> repo.addAll(java.util.stream.Stream.of(rejected))), "A vetoed bulk add should fail");
+        assertEquals(1, repo.getAll().size(), "Vetoed adds should not be published");
+        
+        assertTrue(failsToCommit(() -> repo.remove(kept)), "A vetoed remove should fail");
+        assertTrue(repo.findByIdentity("1111111111") == kept, "A vetoed remove should keep the item");
+        assertTrue(failsToCommit(() -> kept.setStatus(BookStatus.CHECKED_OUT)), "A vetoed change should fail");
+        assertEquals(BookStatus.AVAILABLE, kept.getStatus(), "A vetoed change should be reverted");
+        assertEquals(1, repo.findByStatus(BookStatus.AVAILABLE).size(), "A vetoed change should keep the old index key");
+        assertTrue(failsToCommit(() -> kept.setIsbn("3333333333")), "A vetoed re-key should fail");
+        assertTrue(repo.findByIdentity("1111111111") == kept, "A vetoed re-key should keep the old identity");
+        assertTrue(failsToCommit(repo::clear), "A vetoed clear should fail");
+        assertEquals(1, repo.getAll().size(), "Vetoed removals should not be published");
+        assertEquals(0, published.get(), "Vetoed mutations should not be announced");
+        
+        veto[0] = false;
+        rejected.setTitle("Accepted");
+        assertTrue(repo.add(rejected), "A previously vetoed item should be added once the veto lifts");
+        kept.setStatus(BookStatus.CHECKED_OUT);
+        assertEquals(1, repo.findByStatus(BookStatus.CHECKED_OUT).size(), "Changes should commit once the veto lifts");
+        assertEquals(2, published.get(), "Committed mutations should be announced");
+        
+        System.out.println("Vetoed Mutations tests passed\n");
+    }
+    
+    private static boolean failsToCommit(Runnable mutation) {
+        try {
+            mutation.run();
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+    
+    private static void testChangeLockOrder() {
+        System.out.println("--- Test: Change Lock Order ---");
+        
+        Author author = Author.of("Test", "Author", 1950);
+        Book early = Book.of("Early", author, "1111111111", BookStatus.AVAILABLE);
+        Book late = Book.of("Late", author, "2222222222", BookStatus.AVAILABLE);
+        Reader reader = Reader.of("Alice", "Smith", "RD11111");
+        LocalDate issued = LocalDate.now().minusDays(3);
+        
+        BookRepository books = new BookRepository(true);
+        LoanRepository loans = new LoanRepository(true);
+        books.add(early);
+        loans.add(Loan.of(early, reader, issued, issued.plusDays(14)));
+        loans.add(Loan.of(late, reader, issued, issued.plusDays(14)));
+        books.add(late);
+        
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        Thread[] writers = new Thread[2];
+        Book[] targets = {early, late};
+        for (int i = 0; i < writers.length; i++) {
+            Book target = targets[i];
+            writers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int round = 0; round < 2000; round++) {
+                        target.setStatus(round % 2 == 0 ? BookStatus.CHECKED_OUT : BookStatus.AVAILABLE);
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+            writers[i].setDaemon(true);
+            writers[i].start();
+        }
+        start.countDown();
+        boolean finished = true;
+        for (Thread writer : writers) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(20));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished &= !writer.isAlive();
+        }
+        assertTrue(finished, "Books registered with repositories in opposite order should not deadlock");
+        assertEquals(0, failures.get(), "Concurrent changes should not fail");
+        assertEquals(2, books.findByStatus(BookStatus.AVAILABLE).size(), "Status index should settle after concurrent changes");
+        assertEquals(1, loans.findByBook(late).size(), "Reference index should settle after concurrent changes");
+        
+        boolean rejected = false;
+        try {
+            late.setIsbn("1111111111");
+        } catch (InvalidDataException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "Colliding ISBN should be rejected across repositories");
+        assertEquals("2222222222", late.getIsbn(), "Rejected change should be reverted");
+        assertEquals(1, loans.findByBook(late).size(), "Rejected change should restore the reference index");
+        late.setStatus(BookStatus.LOST);
+        assertEquals(1, books.findByStatus(BookStatus.LOST).size(), "Locks should be released after a rejected change");
+        
+        System.out.println("Change Lock Order tests passed\n");
+    }
+    
+    private static void testBitmapIndexes() {
+        System.out.println("--- Test: Bitmap Indexes ---");
+        
+        Author author = Author.of("Test", "Author", 1980);
+        BookRepository books = new BookRepository();
+        BookStatus[] statuses = BookStatus.values();
+        for (int i = 0; i < 200; i++) {
+            books.add(Book.of("Book " + i, author, String.valueOf(1000000000L + i), statuses[i % statuses.length]));
+        }
+        assertEquals(50, books.findByStatus(BookStatus.AVAILABLE).size(), "Bitmap lookup should find every match");
+        assertEquals(Long.valueOf(50L), books.countByStatus().get(BookStatus.LOST), "Counts should come from bitmap cardinality");
+        assertEquals("Book 1", books.findFirstByStatus(BookStatus.CHECKED_OUT).map(Book::getTitle).orElse(null),
+                    "First match should be the earliest stored");
+        assertEquals(100, books.findByStatusIn(BookStatus.AVAILABLE, BookStatus.RESERVED).size(), "OR should union statuses");
+        
+        Bitmap unavailable = books.bitmap("status", BookStatus.CHECKED_OUT, BookStatus.RESERVED, BookStatus.LOST);
+        Bitmap reserved = books.bitmap("status", BookStatus.RESERVED);
+        assertEquals(100, unavailable.andNot(reserved).cardinality(), "ANDNOT should subtract positions");
+        assertEquals(50, unavailable.and(reserved).cardinality(), "AND should intersect positions");
+        
+        Book first = books.findFirstByStatus(BookStatus.AVAILABLE).orElseThrow();
+        first.setStatus(BookStatus.LOST);
+        assertEquals(49, books.countByBitmap("status", BookStatus.AVAILABLE), "Status change should move the bit");
+        assertTrue(books.findByStatus(BookStatus.LOST).contains(first), "Changed book should be found under its new status");
+        
+        Bitmap stale = books.bitmap("status", BookStatus.AVAILABLE);
+        for (Book book : books.findByStatusIn(BookStatus.CHECKED_OUT, BookStatus.RESERVED)) {
+            books.remove(book);
+        }
+        books.remove(first);
+        assertEquals(99, books.size(), "Removals should leave 99 books");
+        assertEquals(49, books.findByStatus(BookStatus.AVAILABLE).size(), "Bitmaps should be rebuilt after compaction");
+        assertEquals("Book 4", books.findFirstByStatus(BookStatus.AVAILABLE).map(Book::getTitle).orElse(null),
+                    "Rebuilt bitmap should keep storage order");
+        try {
+            books.findByBitmap(stale);
+            assertTrue(false, "Stale bitmap should be rejected");
+        } catch (IllegalStateException e) {
+            assertTrue(true, "Stale bitmap should be rejected");
+        }
+        assertEquals(2, books.query().where("status", BookStatus.AVAILABLE).limit(2).list().size(),
+                    "Query planner should use bitmap indexes");
+        
+        Bitmap available = books.bitmap("status", BookStatus.AVAILABLE);
+        Book removed = books.findFirstByStatus(BookStatus.AVAILABLE).orElseThrow();
+        books.remove(removed);
+        List<Book> resolved = books.findByBitmap(available);
+        assertEquals(48, resolved.size(), "Resolving a bitmap should skip slots removed after it was taken");
+        assertTrue(!resolved.contains(removed), "Removed book should not be resolved from an older bitmap");
+        assertEquals("Book 8", books.findFirstByBitmap(available).map(Book::getTitle).orElse(null),
+                    "First match should skip removed slots");
+        assertEquals(48, books.findByStatus(BookStatus.AVAILABLE).size(), "Status lookup should follow the removal");
+        books.add(removed);
+        
+        Reader alice = Reader.of("Alice", "Smith", "RD11111");
+        Reader bob = Reader.of("Bob", "Jones", "RD22222");
+        Book hobbit = Book.of("The Hobbit", author, "1111111111", BookStatus.CHECKED_OUT);
+        Book silmarillion = Book.of("The Silmarillion", author, "2222222222", BookStatus.AVAILABLE);
+        LocalDate issued = LocalDate.now().minusDays(3);
+        LoanRepository loans = new LoanRepository();
+        Loan aliceLoan = Loan.of(hobbit, alice, issued, issued.plusDays(14));
+        loans.add(aliceLoan);
+        loans.add(Loan.of(silmarillion, alice, issued, issued.plusDays(14)));
+        loans.add(Loan.of(hobbit, bob, issued, issued.plusDays(14)));
+        MembershipRepository memberships = new MembershipRepository();
+        memberships.add(Membership.of(alice, issued, issued.plusYears(1), MembershipType.PREMIUM));
+        memberships.add(Membership.of(bob, issued, issued.plusYears(1), MembershipType.STANDARD));
+        
+        assertEquals(Long.valueOf(1L), memberships.countByType().get(MembershipType.PREMIUM), "Membership counts should use bitmaps");
+        assertEquals(List.of(aliceLoan), 
+                    loans.findByBookStatusAndReaders(BookStatus.CHECKED_OUT, memberships.findReadersByType(MembershipType.PREMIUM)),
+                    "Checked-out loans of premium members should combine bitmaps");
+        silmarillion.setStatus(BookStatus.CHECKED_OUT);
+        assertEquals(3, loans.findByBookStatus(BookStatus.CHECKED_OUT).size(), "Book status change should re-index its loans");
+        
+        BookRepository shared = new BookRepository(true);
+        AtomicInteger failures = new AtomicInteger();
+        Thread churn = new Thread(() -> {
+            try {
+                List<Book> added = new ArrayList<>();
+                for (int i = 0; i < 3000; i++) {
+                    Book book = Book.of("Churn " + i, author, String.valueOf(2000000000L + i), statuses[i % statuses.length]);
+                    added.add(book);
+                    shared.add(book);
+                    if (i >= 100) {
+                        shared.remove(added.get(i - 100));
+                    }
+                }
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+        });
+        churn.start();
+        int reads = 0;
+        while (churn.isAlive() || reads == 0) {
+            try {
+                shared.withStablePositions(() -> shared.findByBitmap(
+                        shared.bitmap("status", BookStatus.AVAILABLE).and(shared.bitmapOf(shared.getAll()))));
+                shared.countByBitmap("status", BookStatus.AVAILABLE);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+            }
+            reads++;
+        }
+        try {
+            churn.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertEquals(0, failures.get(), "Positional reads should retry across compactions instead of failing");
+        assertEquals(25, shared.countByBitmap("status", BookStatus.AVAILABLE), "Maintained counts should match the survivors");
+        assertEquals(25, shared.findByStatus(BookStatus.AVAILABLE).size(), "Published bitmaps should match the survivors");
+        
+        System.out.println("Bitmap Indexes tests passed\n");
+    }
+    
+    private static void testMappedRecordStore() {
+        System.out.println("--- Test: Mapped Record Store ---");
+        
+        try {
+            Path directory = Files.createTempDirectory("record-store");
+            Path bookPath = directory.resolve("books.dat");
+            Path loanPath = directory.resolve("loans.dat");
+            Author author = Author.of("George", "Orwell", 1903);
+            Reader reader = Reader.of("John", "Doe", "RD11111");
+            Book book1 = Book.of("1984", author, "0451524935", BookStatus.CHECKED_OUT);
+            Book book2 = Book.of("Animal Farm", author, "978-0-452-28424-1", BookStatus.AVAILABLE);
+            LocalDate issued = LocalDate.now().minusDays(30);
+            
+            try (MappedRecordStore<Book> books = MappedRecordStore.openBooks(bookPath)) {
+                assertTrue(books.add(book1), "Should store book1");
+                assertTrue(books.add(book2), "Should store book2");
+                assertFalse(books.add(book1), "Duplicate identities should be rejected");
+                for (int i = 0; i < 20000; i++) {
+                    books.add(Book.of("Filler " + i, author, String.valueOf(2000000000L + i), BookStatus.RESERVED));
+                }
+                try (MappedRecordStore<Loan> loans = MappedRecordStore.openLoans(loanPath, isbn -> books.findByIdentity(isbn))) {
+                    loans.add(Loan.of(book1, reader, issued, issued.plusDays(14)));
+                    loans.add(Loan.of(book2, reader, issued, LocalDate.now().plusDays(7)));
+                }
+                book2.setStatus(BookStatus.LOST);
+                assertTrue(books.update(book2), "Should rewrite a stored record in place");
+                assertTrue(books.remove("0451524935"), "Should remove by identity");
+                assertTrue(books.add(book1), "Freed slots should be reusable");
+                try {
+                    books.add(Book.of("x".repeat(300), author, "1111111111", BookStatus.AVAILABLE));
+                    assertTrue(false, "Oversized fields should be rejected");
+                } catch (IllegalArgumentException e) {
+                    assertTrue(true, "Oversized fields should be rejected");
+                }
+                try {
+                    books.update(Book.of("x".repeat(300), author, "978-0-452-28424-1", BookStatus.AVAILABLE));
+                    assertTrue(false, "Oversized updates should be rejected");
+                } catch (IllegalArgumentException e) {
+                    assertEquals(BookStatus.LOST, books.findByIdentity("978-0-452-28424-1").getStatus(),
+                                "A rejected update should leave the stored record untouched");
+                }
+            }
+            
+            try (MappedRecordStore<Book> books = MappedRecordStore.openBooks(bookPath);
+                 MappedRecordStore<Loan> loans = MappedRecordStore.openLoans(loanPath, isbn -> books.findByIdentity(isbn))) {
+                assertEquals(20002, books.size(), "Reopened store should index every live record");
+                assertEquals("Animal Farm", books.findByIdentity("978-0-452-28424-1").getTitle(), "Identity lookup should decode the record");
+                assertEquals(BookStatus.LOST, books.findByIdentity("978-0-452-28424-1").getStatus(), "Updates should persist");
+                assertEquals(20000, books.count(BookRecordCodec.hasStatus(BookStatus.RESERVED)), "Counts should not decode records");
+                assertEquals(3, books.find(BookRecordCodec.hasStatus(BookStatus.RESERVED), 3).size(), "Finders should honour the limit");
+                assertNull(books.findByIdentity("1111111111"), "Rejected records should not be stored");
+                assertEquals("Animal Farm", books.findByIdentity("9780452284241").getTitle(), "Store identities should ignore ISBN hyphens");
+                assertTrue(books.contains("0-451-52493-5"), "Hyphenated ISBN-10 lookups should be normalized");
+                assertTrue(loans.contains(LoanKey.of(book1, reader, issued)), "Loan records should be keyed by LoanKey");
+                
+                assertEquals(2, loans.find(LoanRecordCodec.forReader("RD11111")).size(), "Loans should be found by reader");
+                List<Loan> overdue = loans.find(LoanRecordCodec.dueBefore(LocalDate.now()));
+                assertEquals(1, overdue.size(), "Overdue filter should read the return date column");
+                assertEquals("1984", overdue.get(0).getBook().getTitle(), "Loan books should be resolved from the book store");
+            }
+            
+            try (MappedRecordStore<Membership> memberships = MappedRecordStore.openMemberships(directory.resolve("memberships.dat"))) {
+                memberships.add(Membership.of(reader, issued, issued.plusYears(1), MembershipType.PREMIUM));
+                assertEquals(1, memberships.count(MembershipRecordCodec.hasType(MembershipType.PREMIUM)), "Membership type filter should match");
+                assertEquals(1, memberships.count(MembershipRecordCodec.activeOn(LocalDate.now())), "Active filter should match");
+            }
+            
+            System.out.println("Mapped Record Store tests passed\n");
+        } catch (IOException e) {
+            testsFailed++;
+            System.err.println("FAIL: Mapped record store error: " + e.getMessage());
+        }
+    }
+    
     private static void assertTrue(boolean condition, String message) {
         if (condition) {
             testsPassed++;
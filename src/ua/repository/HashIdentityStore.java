@@ -0,0 +1,39 @@
+package ua.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class HashIdentityStore<T> implements IdentityStore<T> {
+    
+    private final Map<Object, Slot<T>> slots;
+    
+    HashIdentityStore(boolean concurrent) {
+        this.slots = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+    
+    @Override
+    public Slot<T> get(Object identity) {
+        return slots.get(identity);
+    }
+    
+    @Override
+    public Slot<T> put(Object identity, Slot<T> slot) {
+        return slots.put(identity, slot);
+    }
+    
+    @Override
+    public Slot<T> putIfAbsent(Object identity, Slot<T> slot) {
+        return slots.putIfAbsent(identity, slot);
+    }
+    
+    @Override
+    public Slot<T> remove(Object identity) {
+        return slots.remove(identity);
+    }
+    
+    @Override
+    public void clear() {
+        slots.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package ua.repository;
+
+import java.util.Objects;
+
+interface IdentityStore<T> {
+    
+    Slot<T> get(Object identity);
+    
+    Slot<T> put(Object identity, Slot<T> slot);
+    
+    Slot<T> putIfAbsent(Object identity, Slot<T> slot);
+    
+    Slot<T> remove(Object identity);
+    
+    void clear();
+    
+    default boolean containsKey(Object identity) {
+        return get(identity) != null;
+    }
+    
+    default int hash(Object identity) {
+        return Objects.hashCode(identity);
+    }
+}
@@ -0,0 +1,6 @@
+package ua.repository;
+
+@FunctionalInterface
+public interface IndexKeyExtractor<T> {
+    Object extractKey(T item);
+}
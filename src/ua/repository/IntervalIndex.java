@@ -0,0 +1,169 @@
+package ua.repository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class IntervalIndex<T> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(IntervalIndex.class.getName());
+    
+    private final String name;
+    private final IndexKeyExtractor<T> startExtractor;
+    private final IndexKeyExtractor<T> endExtractor;
+    private volatile Node<T> root;
+    private volatile int size;
+    
+    private record Node<T>(long start, long end, long sequence, T item, int priority, long maxEnd,
+                           Node<T> left, Node<T> right) {
+        
+        static <T> Node<T> of(long start, long end, long sequence, T item, int priority, Node<T> left, Node<T> right) {
+            long maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+            return new Node<>(start, end, sequence, item, priority, maxEnd, left, right);
+        }
+        
+        Node<T> with(Node<T> left, Node<T> right) {
+            return of(start, end, sequence, item, priority, left, right);
+        }
+        
+        int compareTo(long otherStart, long otherSequence) {
+            int result = Long.compare(start, otherStart);
+            return result != 0 ? result : Long.compare(sequence, otherSequence);
+        }
+    }
+    
+    private record Split<T>(Node<T> left, Node<T> right) {}
+    
+    public IntervalIndex(String name, IndexKeyExtractor<T> startExtractor, IndexKeyExtractor<T> endExtractor) {
+        if (startExtractor == null || endExtractor == null) {
+            throw new IllegalArgumentException("Interval key extractors cannot be null");
+        }
+        this.name = name;
+        this.startExtractor = startExtractor;
+        this.endExtractor = endExtractor;
+        
+        logger.log(Level.FINE, "IntervalIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public synchronized void add(Slot<T> slot) {
+        Long start = keyOf(startExtractor.extractKey(slot.item));
+        Long end = keyOf(endExtractor.extractKey(slot.item));
+        if (start == null || end == null) {
+            return;
+        }
+        Split<T> split = split(root, start, slot.sequence, false);
+        Node<T> node = Node.of(start, end, slot.sequence, slot.item, priority(slot.sequence), null, null);
+        root = merge(merge(split.left(), node), split.right());
+        size++;
+    }
+    
+    @Override
+    public synchronized void remove(Slot<T> slot) {
+        Long start = keyOf(startExtractor.extractKey(slot.item));
+        if (start == null) {
+            return;
+        }
+        Split<T> lower = split(root, start, slot.sequence, false);
+        Split<T> upper = split(lower.right(), start, slot.sequence, true);
+        if (upper.left() != null) {
+            size--;
+        }
+        root = merge(lower.left(), upper.right());
+    }
+    
+    @Override
+    public synchronized void clear() {
+        root = null;
+        size = 0;
+    }
+    
+    public List<T> findContaining(long key) {
+        List<T> result = new ArrayList<>();
+        collect(root, key, result);
+        return result;
+    }
+    
+    public Stream<T> streamContaining(long key) {
+        return findContaining(key).stream();
+    }
+    
+    public static long key(LocalDate date) {
+        return date.toEpochDay();
+    }
+    
+    private static <T> void collect(Node<T> node, long key, List<T> result) {
+        while (node != null && node.maxEnd() >= key) {
+            collect(node.left(), key, result);
+            if (node.start() > key) {
+                return;
+            }
+            if (node.end() >= key) {
+                result.add(node.item());
+            }
+            node = node.right();
+        }
+    }
+    
+    private static <T> Split<T> split(Node<T> node, long start, long sequence, boolean inclusive) {
+        if (node == null) {
+            return new Split<>(null, null);
+        }
+        int order = node.compareTo(start, sequence);
+        if (order < 0 || (inclusive && order == 0)) {
+            Split<T> rest = split(node.right(), start, sequence, inclusive);
+            return new Split<>(node.with(node.left(), rest.left()), rest.right());
+        }
+        Split<T> rest = split(node.left(), start, sequence, inclusive);
+        return new Split<>(rest.left(), node.with(rest.right(), node.right()));
+    }
+    
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority() >= right.priority()) {
+            return left.with(left.left(), merge(left.right(), right));
+        }
+        return right.with(merge(left, right.left()), right.right());
+    }
+    
+    private static int priority(long sequence) {
+        long mixed = sequence * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+    
+    private static Long keyOf(Object key) {
+        if (key instanceof LocalDate date) {
+            return date.toEpochDay();
+        }
+        if (key instanceof Number number) {
+            return number.longValue();
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntervalIndex{name=" + name + ", size=" + size + "}";
+    }
+}
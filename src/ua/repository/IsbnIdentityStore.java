@@ -0,0 +1,75 @@
+package ua.repository;
+
+import ua.util.IsbnKey;
+import ua.util.LongObjectHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class IsbnIdentityStore<T> implements IdentityStore<T> {
+    
+    private final LongObjectHashMap<Slot<T>> slots;
+    private final Map<Long, Slot<T>> concurrentSlots;
+    
+    IsbnIdentityStore(boolean concurrent) {
+        this.slots = concurrent ? null : new LongObjectHashMap<>();
+        this.concurrentSlots = concurrent ? new ConcurrentHashMap<>() : null;
+    }
+    
+    @Override
+    public Slot<T> get(Object identity) {
+        long key = keyOf(identity);
+        if (!IsbnKey.isValid(key)) {
+            return null;
+        }
+        return slots != null ? slots.get(key) : concurrentSlots.get(key);
+    }
+    
+    @Override
+    public Slot<T> put(Object identity, Slot<T> slot) {
+        long key = keyOf(identity);
+        if (!IsbnKey.isValid(key)) {
+            throw new IllegalArgumentException("Identity is not a valid ISBN: " + identity);
+        }
+        return slots != null ? slots.put(key, slot) : concurrentSlots.put(key, slot);
+    }
+    
+    @Override
+    public Slot<T> putIfAbsent(Object identity, Slot<T> slot) {
+        long key = keyOf(identity);
+        if (!IsbnKey.isValid(key)) {
+            throw new IllegalArgumentException("Identity is not a valid ISBN: " + identity);
+        }
+        if (concurrentSlots != null) {
+            return concurrentSlots.putIfAbsent(key, slot);
+        }
+        Slot<T> existing = slots.get(key);
+        return existing != null ? existing : slots.put(key, slot);
+    }
+    
+    @Override
+    public Slot<T> remove(Object identity) {
+        long key = keyOf(identity);
+        if (!IsbnKey.isValid(key)) {
+            return null;
+        }
+        return slots != null ? slots.remove(key) : concurrentSlots.remove(key);
+    }
+    
+    @Override
+    public void clear() {
+        if (slots != null) {
+            slots.clear();
+        } else {
+            concurrentSlots.clear();
+        }
+    }
+    
+    @Override
+    public int hash(Object identity) {
+        return Long.hashCode(keyOf(identity));
+    }
+    
+    private static long keyOf(Object identity) {
+        return identity instanceof String isbn ? IsbnKey.of(isbn) : IsbnKey.INVALID;
+    }
+}
@@ -0,0 +1,518 @@
+package ua.repository;
+
+import ua.library.Book;
+import ua.library.Loan;
+import ua.library.Membership;
+import ua.util.ConfigLoader;
+import ua.util.DataSerializationException;
+import ua.util.InvalidDataException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class JournaledLibrary implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(JournaledLibrary.class.getName());
+    
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    static final byte CHANGE = 3;
+    static final byte CLEAR = 4;
+    
+    private static final byte IDENTITY_TEXT = 0;
+    private static final byte IDENTITY_LOAN = 1;
+    private static final byte IDENTITY_MEMBERSHIP = 2;
+    
+    private static final Pattern JOURNAL_FILE = Pattern.compile("journal-(\\d{8})\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d{8})\\.bin");
+    
+    private static final int JOURNAL_BUFFER = ConfigLoader.getIntProperty("journal.buffer", 1 << 16);
+    private static final int JOURNAL_BUFFER_MAX = ConfigLoader.getIntProperty("journal.buffer.max", 1 << 22);
+    private static final int SYNC_BATCH = ConfigLoader.getIntProperty("journal.sync.batch", 64);
+    private static final int SYNC_INTERVAL = ConfigLoader.getIntProperty("journal.sync.interval.ms", 200);
+    private static final long CHECKPOINT_BYTES = ConfigLoader.getIntProperty("journal.checkpoint.bytes", 1 << 26);
+    
+    private final Path directory;
+    private final LibraryRepositories repositories;
+    private final ReentrantReadWriteLock rotationLock;
+    private final ExecutorService checkpointer;
+    private final AtomicBoolean checkpointPending;
+    private final Journaled<?>[] journaled;
+    private volatile RepositoryJournal journal;
+    private int generation;
+    private boolean closed;
+    
+    private JournaledLibrary(Path directory, LibraryRepositories repositories, int generation) {
+        this.directory = directory;
+        this.repositories = repositories;
+        this.generation = generation;
+        this.rotationLock = new ReentrantReadWriteLock();
+        this.checkpointPending = new AtomicBoolean();
+        this.checkpointer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.journaled = new Journaled<?>[]{
+            new Journaled<>(SnapshotWriter.AUTHORS, repositories.authors(), null),
+            new Journaled<>(SnapshotWriter.READERS, repositories.readers(), null),
+            new Journaled<>(SnapshotWriter.BOOKS, repositories.books(), JournaledLibrary::applyBook),
+            new Journaled<>(SnapshotWriter.LOANS, repositories.loans(), this::applyLoan),
+            new Journaled<>(SnapshotWriter.MEMBERSHIPS, repositories.memberships(), JournaledLibrary::applyMembership)
+        };
+    }
+    
+    public static JournaledLibrary open() throws DataSerializationException {
+        return open(Path.of(ConfigLoader.getProperty("journal.directory", "data/journal")));
+    }
+    
+    public static JournaledLibrary open(Path directory) throws DataSerializationException {
+        try {
+            Files.createDirectories(directory);
+            int snapshot = latest(directory, SNAPSHOT_FILE);
+            LibraryRepositories repositories = snapshot < 0 ? LibraryRepositories.empty()
+                    : RepositorySerializer.loadSnapshot(snapshotPath(directory, snapshot).toString());
+            List<Integer> journals = generations(directory, JOURNAL_FILE);
+            int generation = Math.max(snapshot, journals.isEmpty() ? -1 : journals.get(journals.size() - 1)) + 1;
+            
+            JournaledLibrary library = new JournaledLibrary(directory, repositories, generation);
+            int replayed = 0;
+            for (int journalGeneration : journals) {
+                if (journalGeneration >= snapshot) {
+                    replayed += library.replay(journalPath(directory, journalGeneration));
+                }
+            }
+            library.journal = library.newJournal(generation);
+            library.attach();
+            
+            logger.log(Level.INFO, "Library recovered from {0}: snapshot {1}, {2} journal entries replayed",
+                       new Object[]{directory, snapshot, replayed});
+            return library;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error recovering library from {0}: {1}", new Object[]{directory, e.getMessage()});
+            throw new DataSerializationException("Failed to recover library: " + directory, e);
+        }
+    }
+    
+    public LibraryRepositories repositories() {
+        return repositories;
+    }
+    
+    public BookRepository books() {
+        return repositories.books();
+    }
+    
+    public ReaderRepository readers() {
+        return repositories.readers();
+    }
+    
+    public AuthorRepository authors() {
+        return repositories.authors();
+    }
+    
+    public LoanRepository loans() {
+        return repositories.loans();
+    }
+    
+    public MembershipRepository memberships() {
+        return repositories.memberships();
+    }
+    
+    public synchronized int getGeneration() {
+        return generation;
+    }
+    
+    public long getJournalSize() {
+        return journal.size();
+    }
+    
+    public void commit() throws DataSerializationException {
+        rotationLock.readLock().lock();
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            throw new DataSerializationException("Failed to commit journal: " + journal.getPath(), e);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+    
+    public synchronized long checkpoint() throws DataSerializationException {
+        if (closed) {
+            throw new DataSerializationException("Journaled library is closed: " + directory);
+        }
+        int snapshotGeneration;
+        rotationLock.writeLock().lock();
+        try {
+            RepositoryJournal previous = journal;
+            journal = newJournal(generation + 1);
+            previous.close();
+            snapshotGeneration = ++generation;
+        } catch (IOException e) {
+            throw new DataSerializationException("Failed to rotate journal in " + directory, e);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+        for (Journaled<?> entry : journaled) {
+            entry.repository.awaitWriters();
+        }
+        
+        Path target = snapshotPath(directory, snapshotGeneration);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        long bytes = RepositorySerializer.saveSnapshot(repositories, temporary.toString());
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (int old : generations(directory, JOURNAL_FILE)) {
+                if (old < snapshotGeneration) {
+                    Files.deleteIfExists(journalPath(directory, old));
+                }
+            }
+            for (int old : generations(directory, SNAPSHOT_FILE)) {
+                if (old < snapshotGeneration) {
+                    Files.deleteIfExists(snapshotPath(directory, old));
+                }
+            }
+        } catch (IOException e) {
+            throw new DataSerializationException("Failed to install snapshot " + target, e);
+        }
+        
+        logger.log(Level.INFO, "Checkpoint {0} written ({1} bytes), older journals truncated",
+                   new Object[]{snapshotGeneration, bytes});
+        return bytes;
+    }
+    
+    public Future<Long> checkpointAsync() {
+        return checkpointer.submit(() -> {
+            try {
+                return checkpoint();
+            } finally {
+                checkpointPending.set(false);
+            }
+        });
+    }
+    
+    @Override
+    public synchronized void close() throws DataSerializationException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Journaled<?> entry : journaled) {
+            entry.detach();
+        }
+        checkpointer.shutdown();
+        rotationLock.writeLock().lock();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new DataSerializationException("Failed to close journal: " + journal.getPath(), e);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+        logger.log(Level.INFO, "Journaled library closed: {0}", directory);
+    }
+    
+    private RepositoryJournal newJournal(int journalGeneration) throws IOException {
+        return new RepositoryJournal(journalPath(directory, journalGeneration), JOURNAL_BUFFER, JOURNAL_BUFFER_MAX,
+                                     SYNC_BATCH, SYNC_INTERVAL);
+    }
+    
+    private void attach() {
+        for (Journaled<?> entry : journaled) {
+            entry.attach();
+        }
+    }
+    
+    private void append(byte[] entry) {
+        long size;
+        rotationLock.readLock().lock();
+        try {
+            journal.append(entry);
+            size = journal.size();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        if (size >= CHECKPOINT_BYTES && checkpointPending.compareAndSet(false, true)) {
+            checkpointAsync();
+        }
+    }
+    
+    private int replay(Path path) throws IOException {
+        List<byte[]> entries = RepositoryJournal.read(path);
+        for (byte[] entry : entries) {
+            ByteBuffer buffer = ByteBuffer.wrap(entry);
+            byte operation = buffer.get();
+            byte kind = buffer.get();
+            Journaled<?> target = null;
+            for (Journaled<?> candidate : journaled) {
+                if (candidate.kind == kind) {
+                    target = candidate;
+                }
+            }
+            if (target == null) {
+                throw new IOException("Unknown journal entry kind " + kind + " in " + path);
+            }
+            try {
+                target.replay(operation, buffer);
+            } catch (InvalidDataException | IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Skipping journal entry that no longer applies: {0}", e.getMessage());
+            }
+        }
+        return entries.size();
+    }
+    
+    private Object resolveReferences(Object state) throws InvalidDataException {
+        if (state instanceof Loan loan) {
+            Book book = repositories.books().findByIdentity(loan.getBook().getIsbn());
+            if (book != null && book != loan.getBook()) {
+                return Loan.of(book, loan.getReader(), loan.getIssueDate(), loan.getReturnDate());
+            }
+        }
+        return state;
+    }
+    
+    private static void applyBook(Book book, Book state) throws InvalidDataException {
+        if (!Objects.equals(book.getTitle(), state.getTitle())) {
+            book.setTitle(state.getTitle());
+        }
+        if (!book.getAuthors().equals(state.getAuthors())) {
+            book.setAuthors(state.getAuthors());
+        }
+        if (!Objects.equals(book.getIsbn(), state.getIsbn())) {
+            book.setIsbn(state.getIsbn());
+        }
+        if (book.getStatus() != state.getStatus()) {
+            book.setStatus(state.getStatus());
+        }
+    }
+    
+    private void applyLoan(Loan loan, Loan state) throws InvalidDataException {
+        if (!Objects.equals(loan.getBook().getIsbn(), state.getBook().getIsbn())) {
+            loan.setBook(state.getBook());
+        }
+        if (!loan.getReader().equals(state.getReader())) {
+            loan.setReader(state.getReader());
+        }
+        if (state.getReturnDate().isAfter(loan.getReturnDate())) {
+            loan.setReturnDate(state.getReturnDate());
+            loan.setIssueDate(state.getIssueDate());
+        } else {
+            loan.setIssueDate(state.getIssueDate());
+            loan.setReturnDate(state.getReturnDate());
+        }
+    }
+    
+    private static void applyMembership(Membership membership, Membership state) throws InvalidDataException {
+        if (!membership.getReader().equals(state.getReader())) {
+            membership.setReader(state.getReader());
+        }
+        if (state.getEndDate().isAfter(membership.getEndDate())) {
+            membership.setEndDate(state.getEndDate());
+            membership.setStartDate(state.getStartDate());
+        } else {
+            membership.setStartDate(state.getStartDate());
+            membership.setEndDate(state.getEndDate());
+        }
+        if (membership.getType() != state.getType()) {
+            membership.setType(state.getType());
+        }
+    }
+    
+    private interface StateApplier<T> {
+        void apply(T entity, T state) throws InvalidDataException;
+    }
+    
+    private final class Journaled<T> implements RepositoryListener<T> {
+        
+        private final byte kind;
+        private final GenericRepository<T> repository;
+        private final StateApplier<T> applier;
+        
+        Journaled(byte kind, GenericRepository<T> repository, StateApplier<T> applier) {
+            this.kind = kind;
+            this.repository = repository;
+            this.applier = applier;
+        }
+        
+        void attach() {
+            repository.addRepositoryListener(this);
+        }
+        
+        void detach() {
+            repository.removeRepositoryListener(this);
+        }
+        
+        @Override
+        public void adding(T item) {
+            append(encode(ADD, item, null, null));
+        }
+        
+        @Override
+        public void removing(T item) {
+            append(encode(REMOVE, item, null, null));
+        }
+        
+        @Override
+        public void changing(T item, Object previousIdentity, String field) {
+            append(encode(CHANGE, item, previousIdentity, field));
+        }
+        
+        @Override
+        public void clearing() {
+            append(new byte[]{CLEAR, kind});
+        }
+        
+        @Override
+        public void added(T item) {
+        }
+        
+        @Override
+        public void removed(T item) {
+        }
+        
+        @Override
+        public void changed(T item, Object previousIdentity, String field) {
+        }
+        
+        @Override
+        public void cleared() {
+        }
+        
+        private byte[] encode(byte operation, T item, Object previousIdentity, String field) {
+            byte[] state;
+            try {
+                state = SnapshotWriter.encodeEntity(kind, item);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to encode journal entry", e);
+            }
+            byte[] name = field == null ? new byte[0] : field.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(2 + (operation == CHANGE ? Integer.BYTES + name.length + identitySize(previousIdentity) : 0)
+                                                    + state.length);
+            buffer.put(operation).put(kind);
+            if (operation == CHANGE) {
+                buffer.putInt(name.length).put(name);
+                putIdentity(buffer, previousIdentity);
+            }
+            buffer.put(state);
+            return buffer.array();
+        }
+        
+        @SuppressWarnings("unchecked")
+        void replay(byte operation, ByteBuffer buffer) throws InvalidDataException, IOException {
+            if (operation == CLEAR) {
+                repository.clear();
+                return;
+            }
+            String field = null;
+            Object previousIdentity = null;
+            if (operation == CHANGE) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                field = new String(name, StandardCharsets.UTF_8);
+                previousIdentity = getIdentity(buffer);
+            }
+            T state = (T) resolveReferences(SnapshotReader.decodeEntity(kind, buffer.array(), buffer.position(), 
+                                                                        buffer.remaining()));
+            
+            switch (operation) {
+                case ADD -> repository.add(state);
+                case REMOVE -> repository.remove(state);
+                case CHANGE -> replayChange(state, previousIdentity, field);
+                default -> throw new IOException("Unknown journal operation " + operation);
+            }
+        }
+        
+        private void replayChange(T state, Object previousIdentity, String field) throws InvalidDataException {
+            T current = repository.findByIdentity(repository.identityOf(state));
+            T previous = repository.findByIdentity(previousIdentity);
+            if (current != null && previous != null && previous != current) {
+                repository.remove(previous);
+            }
+            T target = current != null ? current : previous;
+            if (target == null || applier == null) {
+                logger.log(Level.FINE, "Journaled change of {0} no longer applies", field);
+                return;
+            }
+            applier.apply(target, state);
+        }
+    }
+    
+    private static int identitySize(Object identity) {
+        if (identity instanceof LoanKey) {
+            return 1 + 3 * Long.BYTES;
+        }
+        if (identity instanceof MembershipKey) {
+            return 1 + 2 * Long.BYTES;
+        }
+        return 1 + Integer.BYTES + String.valueOf(identity).getBytes(StandardCharsets.UTF_8).length;
+    }
+    
+    private static void putIdentity(ByteBuffer buffer, Object identity) {
+        if (identity instanceof LoanKey key) {
+            buffer.put(IDENTITY_LOAN).putLong(key.isbn()).putLong(key.readerId()).putLong(key.issueEpochDay());
+        } else if (identity instanceof MembershipKey key) {
+            buffer.put(IDENTITY_MEMBERSHIP).putLong(key.readerId()).putLong(key.startEpochDay());
+        } else {
+            byte[] text = String.valueOf(identity).getBytes(StandardCharsets.UTF_8);
+            buffer.put(IDENTITY_TEXT).putInt(text.length).put(text);
+        }
+    }
+    
+    private static Object getIdentity(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case IDENTITY_LOAN:
+                return new LoanKey(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            case IDENTITY_MEMBERSHIP:
+                return new MembershipKey(buffer.getLong(), buffer.getLong());
+            case IDENTITY_TEXT:
+                byte[] text = new byte[buffer.getInt()];
+                buffer.get(text);
+                return new String(text, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown journal identity tag " + tag);
+        }
+    }
+    
+    private static Path journalPath(Path directory, int generation) {
+        return directory.resolve(String.format("journal-%08d.log", generation));
+    }
+    
+    private static Path snapshotPath(Path directory, int generation) {
+        return directory.resolve(String.format("snapshot-%08d.bin", generation));
+    }
+    
+    private static int latest(Path directory, Pattern pattern) throws IOException {
+        List<Integer> found = generations(directory, pattern);
+        return found.isEmpty() ? -1 : found.get(found.size() - 1);
+    }
+    
+    private static List<Integer> generations(Path directory, Pattern pattern) throws IOException {
+        List<Integer> found = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    found.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        }
+        Collections.sort(found);
+        return found;
+    }
+}
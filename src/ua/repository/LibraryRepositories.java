@@ -0,0 +1,16 @@
+package ua.repository;
+
+public record LibraryRepositories(BookRepository books, ReaderRepository readers, AuthorRepository authors, 
+                                  LoanRepository loans, MembershipRepository memberships) {
+    
+    public LibraryRepositories {
+        if (books == null || readers == null || authors == null || loans == null || memberships == null) {
+            throw new IllegalArgumentException("All repositories must be provided");
+        }
+    }
+    
+    public static LibraryRepositories empty() {
+        return new LibraryRepositories(new BookRepository(), new ReaderRepository(), new AuthorRepository(), 
+                                       new LoanRepository(), new MembershipRepository());
+    }
+}
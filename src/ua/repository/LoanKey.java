@@ -0,0 +1,31 @@
+package ua.repository;
+
+import ua.library.Book;
+import ua.library.Loan;
+import ua.library.Reader;
+import ua.util.IsbnKey;
+import ua.util.ReaderIdKey;
+import java.time.LocalDate;
+
+public record LoanKey(long isbn, long readerId, long issueEpochDay) {
+    
+    public static LoanKey of(Loan loan) {
+        return of(loan.getBook(), loan.getReader(), loan.getIssueDate());
+    }
+    
+    public static LoanKey of(Book book, Reader reader, LocalDate issueDate) {
+        return new LoanKey(IsbnKey.of(book.getIsbn()), ReaderIdKey.of(reader.readerId()), issueDate.toEpochDay());
+    }
+    
+    @Override
+    public int hashCode() {
+        long hash = isbn * 31 + readerId;
+        hash = hash * 31 + issueEpochDay;
+        return (int) (hash ^ (hash >>> 32));
+    }
+    
+    @Override
+    public String toString() {
+        return isbn + "|" + readerId + "|" + issueEpochDay;
+    }
+}
@@ -0,0 +1,83 @@
+package ua.repository;
+
+import ua.library.Book;
+import ua.library.Loan;
+import ua.util.InvalidDataException;
+import ua.util.IsbnKey;
+import ua.util.ReaderIdKey;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+public class LoanRecordCodec implements RecordCodec<Loan> {
+    
+    static final int BOOK_ISBN = 0;
+    static final int READER = BOOK_ISBN + RecordCodec.stringField(BookRecordCodec.MAX_ISBN);
+    static final int ISSUE_DATE = READER + ReaderRecordFields.SIZE;
+    static final int RETURN_DATE = ISSUE_DATE + Long.BYTES;
+    static final int SIZE = RETURN_DATE + Long.BYTES;
+    
+    private final Function<String, Book> books;
+    
+    public LoanRecordCodec(Function<String, Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Book resolver cannot be null");
+        }
+        this.books = books;
+    }
+    
+    @Override
+    public int recordSize() {
+        return SIZE;
+    }
+    
+    @Override
+    public Object identityOf(Loan loan) {
+        return LoanKey.of(loan);
+    }
+    
+    @Override
+    public Object identityAt(ByteBuffer record) {
+        return new LoanKey(IsbnKey.of(RecordCodec.getString(record, BOOK_ISBN)), 
+                           ReaderIdKey.of(ReaderRecordFields.id(record, READER)), record.getLong(ISSUE_DATE));
+    }
+    
+    @Override
+    public void encode(Loan loan, ByteBuffer record) {
+        RecordCodec.putString(record, BOOK_ISBN, loan.getBook().getIsbn(), BookRecordCodec.MAX_ISBN, "isbn");
+        ReaderRecordFields.put(record, READER, loan.getReader());
+        RecordCodec.putDate(record, ISSUE_DATE, loan.getIssueDate());
+        RecordCodec.putDate(record, RETURN_DATE, loan.getReturnDate());
+    }
+    
+    @Override
+    public Loan decode(ByteBuffer record) {
+        String isbn = RecordCodec.getString(record, BOOK_ISBN);
+        Book book = books.apply(isbn);
+        if (book == null) {
+            throw new IllegalStateException("Loan record references unknown book " + isbn);
+        }
+        try {
+            return Loan.of(book, ReaderRecordFields.get(record, READER), 
+                           RecordCodec.getDate(record, ISSUE_DATE), RecordCodec.getDate(record, RETURN_DATE));
+        } catch (InvalidDataException e) {
+            throw new IllegalStateException("Corrupt loan record", e);
+        }
+    }
+    
+    public static RecordFilter forReader(String readerId) {
+        return RecordCodec.stringEquals(READER, readerId);
+    }
+    
+    public static RecordFilter forBook(String isbn) {
+        return RecordCodec.stringEquals(BOOK_ISBN, isbn);
+    }
+    
+    public static RecordFilter dueBefore(LocalDate date) {
+        long day = date.toEpochDay();
+        return record -> {
+            long returnDay = record.getLong(RETURN_DATE);
+            return returnDay != RecordCodec.NULL_DATE && returnDay < day;
+        };
+    }
+}
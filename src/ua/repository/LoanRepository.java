@@ -3,9 +3,12 @@ package ua.repository;
 import ua.library.Loan;
 import ua.library.Reader;
 import ua.library.Book;
+import ua.enums.BookStatus;
+import ua.util.IsbnKey;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -13,110 +16,145 @@ public class LoanRepository extends GenericRepository<Loan> {
     
     private static final Logger logger = Logger.getLogger(LoanRepository.class.getName());
     
+    private final RangeIndex<Loan> issueDates;
+    private final RangeIndex<Loan> returnDates;
+    private final CountingIndex<Loan, Reader> readerCounts;
+    
     public LoanRepository() {
-        super(loan -> loan.getBook().getIsbn() + "|" + 
-                    loan.getReader().readerId() + "|" + 
-                    loan.getIssueDate().toString());
+        this(false);
+    }
+    
+    public LoanRepository(boolean concurrent) {
+        super(LoanKey::of, concurrent);
+        setIdentityFields("book", "reader", "issueDate");
+        registerReferenceIndex("reader", "reader", Loan::getReader, Reader::readerId);
+        registerReferenceIndex("book", "book", Loan::getBook, LoanRepository::bookKey);
+        registerBitmapIndex("bookStatus", loan -> loan.getBook() == null ? null : loan.getBook().getStatus(), 
+                            BookStatus.class, "book");
+        readerCounts = attachIndex("readerCount", CountingIndex.forKeys("readerCount", Loan::getReader), "reader");
+        issueDates = attachIndex("issueDate", new RangeIndex<>("issueDate", Loan::getIssueDate, concurrent), "issueDate");
+        returnDates = attachIndex("returnDate", new RangeIndex<>("returnDate", Loan::getReturnDate, concurrent), "returnDate");
+        registerSortedView("byIssueDate", Comparator.naturalOrder(), "issueDate");
+        registerSortedView("byReturnDate", Loan.byReturnDate(), "returnDate");
+        registerSortedView("byBookTitle", Loan.byBookTitle(), "book");
+        registerSortedView("byReader", Loan.byReader(), "reader");
+        registerSortedView("byIssueDateDescending", Loan.byIssueDateDescending(), "issueDate");
         logger.log(Level.INFO, "LoanRepository initialized");
     }
     
     public List<Loan> sortByIssueDate() {
         logger.log(Level.INFO, "Sorting loans by issue date");
-        List<Loan> sorted = getAll();
-        sorted.sort(Loan::compareTo);
-        return sorted;
+        return findSorted("byIssueDate");
     }
     
     public List<Loan> sortByReturnDate() {
         logger.log(Level.INFO, "Sorting loans by return date");
-        List<Loan> sorted = getAll();
-        sorted.sort(Loan.byReturnDate());
-        return sorted;
+        return findSorted("byReturnDate");
     }
     
     public List<Loan> sortByBookTitle() {
         logger.log(Level.INFO, "Sorting loans by book title");
-        List<Loan> sorted = getAll();
-        sorted.sort(Loan.byBookTitle());
-        return sorted;
+        return findSorted("byBookTitle");
     }
     
     public List<Loan> sortByReader() {
         logger.log(Level.INFO, "Sorting loans by reader");
-        List<Loan> sorted = getAll();
-        sorted.sort(Loan.byReader());
-        return sorted;
+        return findSorted("byReader");
     }
     
     public List<Loan> sortByIssueDateDescending() {
         logger.log(Level.INFO, "Sorting loans by issue date descending");
-        List<Loan> sorted = getAll();
-        sorted.sort(Loan.byIssueDateDescending());
-        return sorted;
+        return findSorted("byIssueDateDescending");
+    }
+    
+    public Loan findLoan(Book book, Reader reader, LocalDate issueDate) {
+        return findByIdentity(LoanKey.of(book, reader, issueDate));
     }
     
     public List<Loan> findByReader(Reader reader) {
         logger.log(Level.INFO, "Searching loans by reader: {0}", reader.readerId());
-        return getAll().stream()
-                .filter(loan -> loan.getReader().equals(reader))
-                .collect(Collectors.toList());
+        return cached("findByReader", () -> findByIndex("reader", reader.readerId()), reader);
+    }
+    
+    public Stream<Loan> streamByReader(Reader reader) {
+        logger.log(Level.INFO, "Streaming loans by reader: {0}", reader.readerId());
+        return streamByIndex("reader", reader.readerId());
     }
     
     public List<Loan> findByBook(Book book) {
         logger.log(Level.INFO, "Searching loans by book: {0}", book.getTitle());
-        return getAll().stream()
-                .filter(loan -> loan.getBook().equals(book))
-                .collect(Collectors.toList());
+        return findByIndex("book", bookKey(book));
+    }
+    
+    public Stream<Loan> streamByBook(Book book) {
+        logger.log(Level.INFO, "Streaming loans by book: {0}", book.getTitle());
+        return streamByIndex("book", bookKey(book));
+    }
+    
+    public List<Loan> findByBookStatus(BookStatus status) {
+        logger.log(Level.INFO, "Searching loans by book status: {0}", status);
+        return findByBitmap("bookStatus", status);
+    }
+    
+    public List<Loan> findByBookStatusAndReaders(BookStatus status, Collection<Reader> readers) {
+        logger.log(Level.INFO, "Searching loans by book status {0} for {1} readers", new Object[]{status, readers.size()});
+        return withStablePositions(() -> {
+            List<Loan> held = new ArrayList<>();
+            for (Reader reader : readers) {
+                held.addAll(findByIndex("reader", reader.readerId()));
+            }
+            return findByBitmap(bitmap("bookStatus", status).and(bitmapOf(held)));
+        });
     }
     
     public List<Loan> findByIssueDateRange(LocalDate startDate, LocalDate endDate) {
         logger.log(Level.INFO, "Searching loans by issue date range: {0} - {1}", new Object[]{startDate, endDate});
-        return getAll().stream()
-                .filter(loan -> !loan.getIssueDate().isBefore(startDate) && !loan.getIssueDate().isAfter(endDate))
-                .collect(Collectors.toList());
+        return issueDates.findBetween(RangeIndex.key(startDate), RangeIndex.key(endDate));
     }
     
     public List<Loan> findOverdue() {
         logger.log(Level.INFO, "Searching overdue loans");
-        return getAll().stream()
-                .filter(Loan::isOverdue)
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        return cached("findOverdue", () -> returnDates.findBefore(RangeIndex.key(today)), today);
+    }
+    
+    public Stream<Loan> streamOverdue() {
+        logger.log(Level.INFO, "Streaming overdue loans");
+        return returnDates.streamBefore(RangeIndex.key(LocalDate.now()));
     }
     
     public List<Loan> findByReturnDateRange(LocalDate startDate, LocalDate endDate) {
         logger.log(Level.INFO, "Searching loans by return date range: {0} - {1}", new Object[]{startDate, endDate});
-        return getAll().stream()
-                .filter(loan -> loan.getReturnDate() != null && 
-                        !loan.getReturnDate().isBefore(startDate) && 
-                        !loan.getReturnDate().isAfter(endDate))
-                .collect(Collectors.toList());
+        return returnDates.findBetween(RangeIndex.key(startDate), RangeIndex.key(endDate));
     }
     
     public List<String> getAllBookTitles() {
         logger.log(Level.INFO, "Getting all book titles from loans");
-        return getAll().stream()
+        return scan(items -> items
                 .map(loan -> loan.getBook().getTitle())
                 .distinct()
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
     
     public Map<Reader, Long> countByReader() {
         logger.log(Level.INFO, "Counting loans by reader");
-        return getAll().stream()
-                .collect(Collectors.groupingBy(Loan::getReader, Collectors.counting()));
+        return readerCounts.snapshot(getVersion());
     }
     
     public long countOverdue() {
         logger.log(Level.INFO, "Counting overdue loans");
-        return getAll().stream()
-                .filter(Loan::isOverdue)
-                .count();
+        return returnDates.countBefore(RangeIndex.key(LocalDate.now()));
     }
     
     public Optional<Loan> findOldestLoan() {
         logger.log(Level.INFO, "Finding oldest loan");
-        return getAll().stream()
-                .min(Loan::compareTo);
+        return scan(items -> items
+                .min(Loan::compareTo));
+    }
+    
+    private static Object bookKey(Book book) {
+        long key = IsbnKey.of(book.getIsbn());
+        return key == IsbnKey.INVALID ? book.getIsbn() : key;
     }
 }
 
@@ -0,0 +1,359 @@
+package ua.repository;
+
+import ua.library.Book;
+import ua.library.Loan;
+import ua.library.Membership;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class MappedRecordStore<T> implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(MappedRecordStore.class.getName());
+    
+    static final int MAGIC = 0x4C49424D;
+    static final short VERSION = 2;
+    
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int RECORD_SIZE_OFFSET = 8;
+    private static final int HIGH_WATER_OFFSET = 12;
+    private static final int LIVE_COUNT_OFFSET = 16;
+    private static final int SEGMENT_RECORDS = 1 << 14;
+    
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+    
+    private final Path path;
+    private final RecordCodec<T> codec;
+    private final int slotSize;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments;
+    private final ByteBuffer scratch;
+    private final ReentrantReadWriteLock lock;
+    private volatile Map<Object, Integer> offsets;
+    private Deque<Integer> free;
+    private int highWater;
+    private int live;
+    
+    private MappedRecordStore(Path path, RecordCodec<T> codec, FileChannel channel) throws IOException {
+        this.path = path;
+        this.codec = codec;
+        this.slotSize = 1 + codec.recordSize();
+        this.channel = channel;
+        this.segments = new ArrayList<>();
+        this.scratch = ByteBuffer.allocate(codec.recordSize());
+        this.lock = new ReentrantReadWriteLock();
+        
+        boolean created = channel.size() == 0;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (created) {
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putShort(VERSION_OFFSET, VERSION);
+            header.putInt(RECORD_SIZE_OFFSET, codec.recordSize());
+            header.putInt(HIGH_WATER_OFFSET, 0);
+            header.putInt(LIVE_COUNT_OFFSET, 0);
+        } else {
+            verifyHeader();
+        }
+        this.highWater = header.getInt(HIGH_WATER_OFFSET);
+        this.live = header.getInt(LIVE_COUNT_OFFSET);
+        while ((long) segments.size() * SEGMENT_RECORDS < highWater) {
+            mapSegment();
+        }
+    }
+    
+    public static <T> MappedRecordStore<T> open(Path path, RecordCodec<T> codec) throws IOException {
+        if (codec == null) {
+            throw new IllegalArgumentException("Record codec cannot be null");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, 
+                                               StandardOpenOption.WRITE);
+        try {
+            MappedRecordStore<T> store = new MappedRecordStore<>(path, codec, channel);
+            logger.log(Level.INFO, "Opened record store {0} with {1} records", new Object[]{path, store.size()});
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    public static MappedRecordStore<Book> openBooks(Path path) throws IOException {
+        return open(path, new BookRecordCodec());
+    }
+    
+    public static MappedRecordStore<Loan> openLoans(Path path, Function<String, Book> books) throws IOException {
+        return open(path, new LoanRecordCodec(books));
+    }
+    
+    public static MappedRecordStore<Membership> openMemberships(Path path) throws IOException {
+        return open(path, new MembershipRecordCodec());
+    }
+    
+    public boolean add(T item) throws IOException {
+        if (item == null) {
+            logger.log(Level.WARNING, "Attempt to add null record");
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Map<Object, Integer> offsets = indexed();
+            Object identity = codec.identityOf(item);
+            if (offsets.containsKey(identity)) {
+                logger.log(Level.WARNING, "Record with identity {0} already exists", identity);
+                return false;
+            }
+            
+            byte[] encoded = encode(item);
+            int slot = free.isEmpty() ? allocate() : free.pop();
+            record(slot).put(encoded);
+            setState(slot, LIVE);
+            offsets.put(identity, slot);
+            setLive(live + 1);
+            logger.log(Level.FINE, "Record stored. Identity: {0}, slot: {1}", new Object[]{identity, slot});
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean update(T item) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = item == null ? null : indexed().get(codec.identityOf(item));
+            if (slot == null) {
+                return false;
+            }
+            record(slot).put(encode(item));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean remove(Object identity) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = indexed().remove(codec.identityKey(identity));
+            if (slot == null) {
+                return false;
+            }
+            setState(slot, DELETED);
+            free.push(slot);
+            setLive(live - 1);
+            logger.log(Level.FINE, "Record removed. Identity: {0}", identity);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public T findByIdentity(Object identity) {
+        ensureIndexed();
+        lock.readLock().lock();
+        try {
+            Integer slot = offsets.get(codec.identityKey(identity));
+            return slot == null ? null : codec.decode(record(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean contains(Object identity) {
+        ensureIndexed();
+        lock.readLock().lock();
+        try {
+            return offsets.containsKey(codec.identityKey(identity));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<T> find(RecordFilter filter, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        lock.readLock().lock();
+        try {
+            List<T> result = new ArrayList<>();
+            for (int slot = 0; slot < highWater && result.size() < limit; slot++) {
+                if (state(slot) == LIVE) {
+                    ByteBuffer record = record(slot);
+                    if (filter.test(record)) {
+                        result.add(codec.decode(record));
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<T> find(RecordFilter filter) {
+        return find(filter, Integer.MAX_VALUE);
+    }
+    
+    public Optional<T> findFirst(RecordFilter filter) {
+        List<T> first = find(filter, 1);
+        return first.isEmpty() ? Optional.empty() : Optional.of(first.get(0));
+    }
+    
+    public int count(RecordFilter filter) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int slot = 0; slot < highWater; slot++) {
+                if (state(slot) == LIVE && filter.test(record(slot))) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    public void force() {
+        lock.readLock().lock();
+        try {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!channel.isOpen()) {
+                return;
+            }
+            force();
+            channel.close();
+            logger.log(Level.INFO, "Closed record store {0}", path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void verifyHeader() throws IOException {
+        if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a record store: " + path);
+        }
+        short version = header.getShort(VERSION_OFFSET);
+        if (version != VERSION) {
+            throw new IOException("Unsupported record store version " + version + ", expected " + VERSION);
+        }
+        int recordSize = header.getInt(RECORD_SIZE_OFFSET);
+        if (recordSize != codec.recordSize()) {
+            throw new IOException("Record size " + recordSize + " does not match codec size " + codec.recordSize());
+        }
+    }
+    
+    private void ensureIndexed() {
+        if (offsets != null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private Map<Object, Integer> indexed() {
+        if (offsets != null) {
+            return offsets;
+        }
+        Map<Object, Integer> built = new HashMap<>(Math.max(16, live * 2));
+        Deque<Integer> slots = new ArrayDeque<>();
+        for (int slot = 0; slot < highWater; slot++) {
+            if (state(slot) == LIVE) {
+                built.put(codec.identityAt(record(slot)), slot);
+            } else {
+                slots.push(slot);
+            }
+        }
+        free = slots;
+        offsets = built;
+        logger.log(Level.FINE, "Indexed {0} records of {1}", new Object[]{built.size(), path});
+        return built;
+    }
+    
+    private void setLive(int count) {
+        live = count;
+        header.putInt(LIVE_COUNT_OFFSET, count);
+    }
+    
+    private int allocate() throws IOException {
+        if (highWater == segments.size() * SEGMENT_RECORDS) {
+            mapSegment();
+        }
+        int slot = highWater++;
+        header.putInt(HIGH_WATER_OFFSET, highWater);
+        return slot;
+    }
+    
+    private void mapSegment() throws IOException {
+        long position = HEADER_SIZE + (long) segments.size() * SEGMENT_RECORDS * slotSize;
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) SEGMENT_RECORDS * slotSize));
+        logger.log(Level.FINE, "Mapped segment {0} of {1}", new Object[]{segments.size(), path});
+    }
+    
+    private byte[] encode(T item) {
+        Arrays.fill(scratch.array(), (byte) 0);
+        codec.encode(item, scratch);
+        return scratch.array();
+    }
+    
+    private ByteBuffer record(int slot) {
+        return segments.get(slot / SEGMENT_RECORDS).slice(base(slot) + 1, codec.recordSize());
+    }
+    
+    private byte state(int slot) {
+        return segments.get(slot / SEGMENT_RECORDS).get(base(slot));
+    }
+    
+    private void setState(int slot, byte state) {
+        segments.get(slot / SEGMENT_RECORDS).put(base(slot), state);
+    }
+    
+    private int base(int slot) {
+        return (slot % SEGMENT_RECORDS) * slotSize;
+    }
+    
+    @Override
+    public String toString() {
+        return "MappedRecordStore{path=" + path + ", records=" + live + "}";
+    }
+}
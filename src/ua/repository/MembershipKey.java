@@ -0,0 +1,28 @@
+package ua.repository;
+
+import ua.library.Membership;
+import ua.library.Reader;
+import ua.util.ReaderIdKey;
+import java.time.LocalDate;
+
+public record MembershipKey(long readerId, long startEpochDay) {
+    
+    public static MembershipKey of(Membership membership) {
+        return of(membership.getReader(), membership.getStartDate());
+    }
+    
+    public static MembershipKey of(Reader reader, LocalDate startDate) {
+        return new MembershipKey(ReaderIdKey.of(reader.readerId()), startDate.toEpochDay());
+    }
+    
+    @Override
+    public int hashCode() {
+        long hash = readerId * 31 + startEpochDay;
+        return (int) (hash ^ (hash >>> 32));
+    }
+    
+    @Override
+    public String toString() {
+        return readerId + "|" + startEpochDay;
+    }
+}
@@ -0,0 +1,67 @@
+package ua.repository;
+
+import ua.library.Membership;
+import ua.enums.MembershipType;
+import ua.util.InvalidDataException;
+import ua.util.ReaderIdKey;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+public class MembershipRecordCodec implements RecordCodec<Membership> {
+    
+    static final int READER = 0;
+    static final int START_DATE = READER + ReaderRecordFields.SIZE;
+    static final int END_DATE = START_DATE + Long.BYTES;
+    static final int TYPE = END_DATE + Long.BYTES;
+    static final int SIZE = TYPE + 1;
+    
+    private static final MembershipType[] TYPES = MembershipType.values();
+    
+    @Override
+    public int recordSize() {
+        return SIZE;
+    }
+    
+    @Override
+    public Object identityOf(Membership membership) {
+        return MembershipKey.of(membership);
+    }
+    
+    @Override
+    public Object identityAt(ByteBuffer record) {
+        return new MembershipKey(ReaderIdKey.of(ReaderRecordFields.id(record, READER)), record.getLong(START_DATE));
+    }
+    
+    @Override
+    public void encode(Membership membership, ByteBuffer record) {
+        ReaderRecordFields.put(record, READER, membership.getReader());
+        RecordCodec.putDate(record, START_DATE, membership.getStartDate());
+        RecordCodec.putDate(record, END_DATE, membership.getEndDate());
+        record.put(TYPE, (byte) membership.getType().ordinal());
+    }
+    
+    @Override
+    public Membership decode(ByteBuffer record) {
+        try {
+            return Membership.of(ReaderRecordFields.get(record, READER), RecordCodec.getDate(record, START_DATE), 
+                                 RecordCodec.getDate(record, END_DATE), TYPES[record.get(TYPE)]);
+        } catch (InvalidDataException e) {
+            throw new IllegalStateException("Corrupt membership record", e);
+        }
+    }
+    
+    public static RecordFilter hasType(MembershipType type) {
+        byte ordinal = (byte) type.ordinal();
+        return record -> record.get(TYPE) == ordinal;
+    }
+    
+    public static RecordFilter forReader(String readerId) {
+        return RecordCodec.stringEquals(READER, readerId);
+    }
+    
+    public static RecordFilter activeOn(LocalDate date) {
+        long day = date.toEpochDay();
+        return record -> record.getLong(START_DATE) <= day && record.getLong(END_DATE) >= day;
+    }
+
+}
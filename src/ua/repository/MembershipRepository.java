@@ -6,6 +6,7 @@ import ua.enums.MembershipType;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -13,108 +14,148 @@ public class MembershipRepository extends GenericRepository<Membership> {
     
     private static final Logger logger = Logger.getLogger(MembershipRepository.class.getName());
     
+    private final RangeIndex<Membership> startDates;
+    private final RangeIndex<Membership> endDates;
+    private final IntervalIndex<Membership> activePeriods;
+    
     public MembershipRepository() {
-        super(membership -> membership.getReader().readerId() + "|" + 
-                         membership.getStartDate().toString());
+        this(false);
+    }
+    
+    public MembershipRepository(boolean concurrent) {
+        super(MembershipKey::of, concurrent);
+        setIdentityFields("reader", "startDate");
+        registerReferenceIndex("reader", "reader", Membership::getReader, Reader::readerId);
+        registerBitmapIndex("type", Membership::getType, MembershipType.class, "type");
+        startDates = attachIndex("startDate", new RangeIndex<>("startDate", Membership::getStartDate, concurrent), "startDate");
+        endDates = attachIndex("endDate", new RangeIndex<>("endDate", Membership::getEndDate, concurrent), "endDate");
+        activePeriods = attachIndex("activePeriod", new IntervalIndex<>("activePeriod", Membership::getStartDate, 
+                                                                        Membership::getEndDate), "startDate", "endDate");
+        registerSortedView("byStartDate", Comparator.naturalOrder(), "startDate");
+        registerSortedView("byEndDate", Membership.byEndDate(), "endDate");
+        registerSortedView("byType", Membership.byType(), "type");
+        registerSortedView("byReader", Membership.byReader(), "reader");
+        registerSortedView("byStartDateDescending", Membership.byStartDateDescending(), "startDate");
         logger.log(Level.INFO, "MembershipRepository initialized");
     }
     
     public List<Membership> sortByStartDate() {
         logger.log(Level.INFO, "Sorting memberships by start date");
-        List<Membership> sorted = getAll();
-        sorted.sort(Membership::compareTo);
-        return sorted;
+        return findSorted("byStartDate");
     }
     
     public List<Membership> sortByEndDate() {
         logger.log(Level.INFO, "Sorting memberships by end date");
-        List<Membership> sorted = getAll();
-        sorted.sort(Membership.byEndDate());
-        return sorted;
+        return findSorted("byEndDate");
     }
     
     public List<Membership> sortByType() {
         logger.log(Level.INFO, "Sorting memberships by type");
-        List<Membership> sorted = getAll();
-        sorted.sort(Membership.byType());
-        return sorted;
+        return findSorted("byType");
     }
     
     public List<Membership> sortByReader() {
         logger.log(Level.INFO, "Sorting memberships by reader");
-        List<Membership> sorted = getAll();
-        sorted.sort(Membership.byReader());
-        return sorted;
+        return findSorted("byReader");
     }
     
     public List<Membership> sortByStartDateDescending() {
         logger.log(Level.INFO, "Sorting memberships by start date descending");
-        List<Membership> sorted = getAll();
-        sorted.sort(Membership.byStartDateDescending());
-        return sorted;
+        return findSorted("byStartDateDescending");
+    }
+    
+    public Membership findMembership(Reader reader, LocalDate startDate) {
+        return findByIdentity(MembershipKey.of(reader, startDate));
     }
     
     public List<Membership> findByReader(Reader reader) {
         logger.log(Level.INFO, "Searching memberships by reader: {0}", reader.readerId());
-        return getAll().stream()
-                .filter(membership -> membership.getReader().equals(reader))
-                .collect(Collectors.toList());
+        return cached("findByReader", () -> findByIndex("reader", reader.readerId()), reader);
     }
     
     public List<Membership> findByType(MembershipType type) {
         logger.log(Level.INFO, "Searching memberships by type: {0}", type);
-        return getAll().stream()
-                .filter(membership -> membership.getType() == type)
-                .collect(Collectors.toList());
+        return cached("findByType", () -> findByBitmap("type", type), type);
+    }
+    
+    public List<Membership> findByTypeIn(MembershipType... types) {
+        logger.log(Level.INFO, "Searching memberships by types: {0}", Arrays.toString(types));
+        return findByBitmap("type", types);
+    }
+    
+    public Set<Reader> findReadersByType(MembershipType type) {
+        logger.log(Level.INFO, "Searching readers holding membership type: {0}", type);
+        return findByType(type).stream()
+                .map(Membership::getReader)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+    
+    public Stream<Membership> streamByType(MembershipType type) {
+        logger.log(Level.INFO, "Streaming memberships by type: {0}", type);
+        return streamByBitmap("type", type);
     }
     
     public List<Membership> findByStartDateRange(LocalDate startDate, LocalDate endDate) {
         logger.log(Level.INFO, "Searching memberships by start date range: {0} - {1}", new Object[]{startDate, endDate});
-        return getAll().stream()
-                .filter(membership -> !membership.getStartDate().isBefore(startDate) && 
-                        !membership.getStartDate().isAfter(endDate))
-                .collect(Collectors.toList());
+        return startDates.findBetween(RangeIndex.key(startDate), RangeIndex.key(endDate));
     }
     
     public List<Membership> findActive() {
         logger.log(Level.INFO, "Searching active memberships");
-        return getAll().stream()
-                .filter(Membership::isActive)
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        return cached("findActive", () -> findActiveOn(today), today);
+    }
+    
+    public List<Membership> findActiveOn(LocalDate date) {
+        logger.log(Level.FINE, "Searching memberships active on {0}", date);
+        return activePeriods.findContaining(IntervalIndex.key(date));
+    }
+    
+    public Stream<Membership> streamActive() {
+        logger.log(Level.INFO, "Streaming active memberships");
+        return activePeriods.streamContaining(IntervalIndex.key(LocalDate.now()));
     }
     
     public List<Membership> findExpired() {
         logger.log(Level.INFO, "Searching expired memberships");
-        return getAll().stream()
-                .filter(Membership::isExpired)
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        return cached("findExpired", () -> endDates.findBefore(RangeIndex.key(today)), today);
+    }
+    
+    public Stream<Membership> streamExpired() {
+        logger.log(Level.INFO, "Streaming expired memberships");
+        return endDates.streamBefore(RangeIndex.key(LocalDate.now()));
     }
     
     public List<Membership> findByEndDateRange(LocalDate startDate, LocalDate endDate) {
         logger.log(Level.INFO, "Searching memberships by end date range: {0} - {1}", new Object[]{startDate, endDate});
-        return getAll().stream()
-                .filter(membership -> !membership.getEndDate().isBefore(startDate) && 
-                        !membership.getEndDate().isAfter(endDate))
-                .collect(Collectors.toList());
+        return endDates.findBetween(RangeIndex.key(startDate), RangeIndex.key(endDate));
     }
     
     public Map<MembershipType, Long> countByType() {
         logger.log(Level.INFO, "Counting memberships by type");
-        return getAll().stream()
-                .collect(Collectors.groupingBy(Membership::getType, Collectors.counting()));
+        return cached("countByType", () -> {
+            Map<MembershipType, Long> counts = new EnumMap<>(MembershipType.class);
+            for (MembershipType type : MembershipType.values()) {
+                int count = countByBitmap("type", type);
+                if (count > 0) {
+                    counts.put(type, (long) count);
+                }
+            }
+            return Collections.unmodifiableMap(counts);
+        });
     }
     
     public long countActive() {
         logger.log(Level.INFO, "Counting active memberships");
-        return getAll().stream()
-                .filter(Membership::isActive)
-                .count();
+        long today = RangeIndex.key(LocalDate.now());
+        return startDates.countBefore(today + 1) - endDates.countBefore(today);
     }
     
     public Optional<Membership> findOldestMembership() {
         logger.log(Level.INFO, "Finding oldest membership");
-        return getAll().stream()
-                .min(Membership::compareTo);
+        return scan(items -> items
+                .min(Membership::compareTo));
     }
 }
 
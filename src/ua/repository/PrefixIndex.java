@@ -0,0 +1,172 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class PrefixIndex<T> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(PrefixIndex.class.getName());
+    
+    private final String name;
+    private final IndexKeyExtractor<T> textExtractor;
+    private final boolean concurrent;
+    private final NavigableMap<String, NavigableMap<Long, T>> entries;
+    
+    public PrefixIndex(String name, IndexKeyExtractor<T> textExtractor, boolean concurrent) {
+        if (textExtractor == null) {
+            throw new IllegalArgumentException("Prefix text extractor cannot be null");
+        }
+        this.name = name;
+        this.textExtractor = textExtractor;
+        this.concurrent = concurrent;
+        this.entries = concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+        
+        logger.log(Level.FINE, "PrefixIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        synchronized (entries) {
+            for (String text : textsOf(slot.item)) {
+                entries.computeIfAbsent(normalize(text), k -> newEntry()).put(slot.sequence, slot.item);
+            }
+        }
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        synchronized (entries) {
+            for (String text : textsOf(slot.item)) {
+                String key = normalize(text);
+                NavigableMap<Long, T> entry = entries.get(key);
+                if (entry != null) {
+                    entry.remove(slot.sequence);
+                    if (entry.isEmpty()) {
+                        entries.remove(key);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        for (Map.Entry<String, NavigableMap<Long, T>> entry : matching(prefix, limit)) {
+            Map.Entry<Long, T> first = entry.getValue().firstEntry();
+            if (first != null) {
+                completions.add(displayText(first.getValue(), entry.getKey()));
+            }
+        }
+        logger.log(Level.FINE, "PrefixIndex {0} completed ''{1}'' with {2} suggestions", 
+                   new Object[]{name, prefix, completions.size()});
+        return completions;
+    }
+    
+    public List<T> findByPrefix(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String normalized = normalize(prefix);
+        Map<Long, T> result = new LinkedHashMap<>();
+        if (normalized == null) {
+            return new ArrayList<>();
+        }
+        for (Map.Entry<String, NavigableMap<Long, T>> entry : entries.tailMap(normalized, true).entrySet()) {
+            if (!entry.getKey().startsWith(normalized)) {
+                break;
+            }
+            for (Map.Entry<Long, T> item : entry.getValue().entrySet()) {
+                if (result.size() == limit) {
+                    return new ArrayList<>(result.values());
+                }
+                result.putIfAbsent(item.getKey(), item.getValue());
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+    
+    public int countPrefix(String prefix) {
+        String normalized = normalize(prefix);
+        if (normalized == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Map.Entry<String, NavigableMap<Long, T>> entry : entries.tailMap(normalized, true).entrySet()) {
+            if (!entry.getKey().startsWith(normalized)) {
+                break;
+            }
+            count += entry.getValue().size();
+        }
+        return count;
+    }
+    
+    private List<Map.Entry<String, NavigableMap<Long, T>>> matching(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String normalized = normalize(prefix);
+        List<Map.Entry<String, NavigableMap<Long, T>>> matches = new ArrayList<>();
+        if (normalized == null) {
+            return matches;
+        }
+        for (Map.Entry<String, NavigableMap<Long, T>> entry : entries.tailMap(normalized, true).entrySet()) {
+            if (matches.size() == limit || !entry.getKey().startsWith(normalized)) {
+                break;
+            }
+            matches.add(entry);
+        }
+        return matches;
+    }
+    
+    private String displayText(T item, String key) {
+        for (String text : textsOf(item)) {
+            if (key.equals(normalize(text))) {
+                return text.strip();
+            }
+        }
+        return key;
+    }
+    
+    private Collection<String> textsOf(T item) {
+        Object text = textExtractor.extractKey(item);
+        if (text == null) {
+            return List.of();
+        }
+        if (!(text instanceof Collection<?> texts)) {
+            return List.of(text.toString());
+        }
+        List<String> result = new ArrayList<>(texts.size());
+        for (Object value : texts) {
+            if (value != null) {
+                result.add(value.toString());
+            }
+        }
+        return result;
+    }
+    
+    private NavigableMap<Long, T> newEntry() {
+        return concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+    }
+    
+    private static String normalize(String text) {
+        return text == null ? null : text.strip().toLowerCase(Locale.ROOT);
+    }
+    
+    @Override
+    public String toString() {
+        return "PrefixIndex{name=" + name + ", entries=" + entries.size() + "}";
+    }
+}
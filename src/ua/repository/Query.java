@@ -0,0 +1,302 @@
+package ua.repository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public final class Query<T> {
+    
+    private static final Logger logger = Logger.getLogger(Query.class.getName());
+    
+    private final GenericRepository<T> repository;
+    private final List<Criterion<T>> criteria;
+    private Comparator<? super T> comparator;
+    private int limit;
+    
+    private record Criterion<T>(String description, LongSupplier estimator, Supplier<List<T>> lookup, 
+                                Predicate<? super T> predicate) {
+        
+        boolean indexed() {
+            return lookup != null;
+        }
+    }
+    
+    private record Plan<T>(Criterion<T> lookup, SortedIndex<T> view, long estimate) {}
+    
+    Query(GenericRepository<T> repository) {
+        this.repository = repository;
+        this.criteria = new ArrayList<>();
+        this.limit = -1;
+    }
+    
+    public Query<T> where(String indexName, Object key) {
+        if (repository.index(indexName) instanceof BitmapIndex<T, ?> bitmapIndex && key instanceof Enum<?> value) {
+            criteria.add(new Criterion<>(indexName + " = " + key + " (bitmap)", 
+                                         () -> repository.countByBitmap(indexName, value), 
+                                         () -> repository.findByBitmap(indexName, value), 
+                                         item -> bitmapIndex.matches(item, key)));
+            return this;
+        }
+        if (!(repository.index(indexName) instanceof SecondaryIndex<T> index)) {
+            throw new IllegalArgumentException("Index " + indexName + " does not support equality lookups");
+        }
+        criteria.add(new Criterion<>(indexName + " = " + key, 
+                                     () -> index.count(key), 
+                                     () -> index.find(key), 
+                                     item -> index.matches(item, key)));
+        return this;
+    }
+    
+    public Query<T> whereContains(String indexName, String fragment) {
+        if (!(repository.index(indexName) instanceof TextIndex<T> index)) {
+            throw new IllegalArgumentException("Index " + indexName + " does not support text lookups");
+        }
+        criteria.add(new Criterion<>(indexName + " CONTAINS '" + fragment + "'", 
+                                     () -> index.estimateContaining(fragment), 
+                                     () -> index.findContaining(fragment), 
+                                     item -> index.matches(item, fragment)));
+        return this;
+    }
+    
+    public Query<T> whereBetween(String indexName, LocalDate from, LocalDate to) {
+        if (!(repository.index(indexName) instanceof RangeIndex<T> index)) {
+            throw new IllegalArgumentException("Index " + indexName + " does not support range lookups");
+        }
+        long low = from == null ? Long.MIN_VALUE : RangeIndex.key(from);
+        long high = to == null ? Long.MAX_VALUE : RangeIndex.key(to);
+        criteria.add(new Criterion<>(indexName + " BETWEEN " + from + " AND " + to, 
+                                     () -> index.countBetween(low, high), 
+                                     () -> index.findBetweenInSequence(low, high), 
+                                     item -> index.matches(item, low, high)));
+        return this;
+    }
+    
+    public Query<T> filter(Predicate<? super T> predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("Predicate cannot be null");
+        }
+        criteria.add(new Criterion<>("predicate", null, null, predicate));
+        return this;
+    }
+    
+    public Query<T> orderBy(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        return this;
+    }
+    
+    public Query<T> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+    
+    public List<T> list() {
+        Plan<T> plan = plan();
+        logger.log(Level.FINE, "Running query: {0}", describe(plan));
+        
+        List<T> result = new ArrayList<>();
+        if (limit == 0) {
+            return result;
+        }
+        
+        if (plan.view() != null) {
+            Iterator<T> iterator = plan.view().iterator();
+            while (iterator.hasNext() && (limit < 0 || result.size() < limit)) {
+                T item = iterator.next();
+                if (accepts(item, null)) {
+                    result.add(item);
+                }
+            }
+            return result;
+        }
+        
+        if (comparator != null && limit > 0) {
+            TopK<T> top = new TopK<>(comparator, limit);
+            scan(plan, top::offer, -1);
+            return top.drain();
+        }
+        
+        scan(plan, result::add, comparator == null ? limit : -1);
+        if (comparator != null) {
+            result.sort(comparator);
+        }
+        return result;
+    }
+    
+    public Stream<T> stream() {
+        Plan<T> plan = plan();
+        logger.log(Level.FINE, "Streaming query: {0}", describe(plan));
+        
+        Stream<T> result;
+        if (plan.view() != null) {
+            result = plan.view().stream().filter(item -> accepts(item, null));
+        } else if (comparator != null) {
+            return list().stream();
+        } else if (plan.lookup() != null) {
+            Criterion<T> lookup = plan.lookup();
+            result = lookup.lookup().get().stream().filter(item -> accepts(item, lookup));
+        } else {
+            result = repository.stream().filter(item -> accepts(item, null));
+        }
+        return limit >= 0 ? result.limit(limit) : result;
+    }
+    
+    public <R> List<R> select(Function<? super T, ? extends R> projection) {
+        if (projection == null) {
+            throw new IllegalArgumentException("Projection cannot be null");
+        }
+        List<T> items = list();
+        List<R> result = new ArrayList<>(items.size());
+        for (T item : items) {
+            result.add(projection.apply(item));
+        }
+        return result;
+    }
+    
+    public Optional<T> first() {
+        int previous = limit;
+        limit = 1;
+        try {
+            List<T> result = list();
+            return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+        } finally {
+            limit = previous;
+        }
+    }
+    
+    public long count() {
+        Plan<T> plan = plan();
+        long[] count = {0};
+        scan(new Plan<>(plan.lookup(), null, plan.estimate()), item -> count[0]++, limit);
+        return count[0];
+    }
+    
+    public String explain() {
+        return describe(plan());
+    }
+    
+    private Plan<T> plan() {
+        Criterion<T> lookup = null;
+        long estimate = repository.size();
+        for (Criterion<T> criterion : criteria) {
+            if (criterion.indexed()) {
+                long candidates = criterion.estimator().getAsLong();
+                if (lookup == null || candidates < estimate) {
+                    lookup = criterion;
+                    estimate = candidates;
+                }
+            }
+        }
+        
+        SortedIndex<T> view = repository.sortedViewFor(comparator);
+        if (view != null) {
+            boolean cheaper = lookup == null
+                    || (limit > 0 && estimate > 0 && (double) limit * repository.size() / estimate < estimate);
+            if (cheaper) {
+                return new Plan<>(null, view, repository.size());
+            }
+        }
+        return new Plan<>(lookup, null, estimate);
+    }
+    
+    private void scan(Plan<T> plan, Consumer<T> sink, int max) {
+        if (max == 0) {
+            return;
+        }
+        Criterion<T> lookup = plan.lookup();
+        Iterable<T> source = lookup == null ? repository.snapshot() : lookup.lookup().get();
+        int accepted = 0;
+        for (T item : source) {
+            if (accepts(item, lookup)) {
+                sink.accept(item);
+                if (++accepted == max) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private boolean accepts(T item, Criterion<T> skip) {
+        for (Criterion<T> criterion : criteria) {
+            if (criterion != skip && !criterion.predicate().test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String describe(Plan<T> plan) {
+        StringBuilder builder = new StringBuilder();
+        if (plan.view() != null) {
+            builder.append("SORTED VIEW SCAN ").append(plan.view().getName());
+        } else if (plan.lookup() != null) {
+            builder.append("INDEX LOOKUP ").append(plan.lookup().description())
+                   .append(" (estimated ").append(plan.estimate()).append(" rows)");
+        } else {
+            builder.append("FULL SCAN (").append(repository.size()).append(" rows)");
+        }
+        for (Criterion<T> criterion : criteria) {
+            if (criterion != plan.lookup()) {
+                builder.append("\n  FILTER ").append(criterion.description());
+            }
+        }
+        if (comparator != null && plan.view() == null) {
+            builder.append(limit > 0 ? "\n  TOP " + limit + " (bounded heap)" : "\n  SORT");
+        } else if (limit >= 0) {
+            builder.append("\n  LIMIT ").append(limit);
+        }
+        return builder.toString();
+    }
+    
+    private static final class TopK<T> {
+        
+        private record Entry<T>(T item, long ordinal) {}
+        
+        private final Comparator<Entry<T>> order;
+        private final PriorityQueue<Entry<T>> heap;
+        private final int limit;
+        private long seen;
+        
+        TopK(Comparator<? super T> comparator, int limit) {
+            this.order = (left, right) -> {
+                int result = comparator.compare(left.item(), right.item());
+                return result != 0 ? result : Long.compare(left.ordinal(), right.ordinal());
+            };
+            this.heap = new PriorityQueue<>(Math.min(limit, 64) + 1, order.reversed());
+            this.limit = limit;
+        }
+        
+        void offer(T item) {
+            Entry<T> entry = new Entry<>(item, seen++);
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (order.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        
+        List<T> drain() {
+            List<T> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                result.add(heap.poll().item());
+            }
+            Collections.reverse(result);
+            return result;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "Query{criteria=" + criteria.size() + "}";
+    }
+}
@@ -0,0 +1,196 @@
+package ua.repository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class RangeIndex<T> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(RangeIndex.class.getName());
+    
+    private final String name;
+    private final IndexKeyExtractor<T> keyExtractor;
+    private final boolean concurrent;
+    private final NavigableMap<Long, NavigableMap<Long, T>> entries;
+    private final NavigableMap<Long, Integer> counts;
+    private long cursor;
+    private long countBeforeCursor;
+    
+    public RangeIndex(String name, IndexKeyExtractor<T> keyExtractor, boolean concurrent) {
+        if (keyExtractor == null) {
+            throw new IllegalArgumentException("Range key extractor cannot be null");
+        }
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+        this.concurrent = concurrent;
+        this.entries = concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+        this.counts = new TreeMap<>();
+        this.cursor = Long.MIN_VALUE;
+        
+        logger.log(Level.FINE, "RangeIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        Long key = keyOf(slot.item);
+        if (key == null) {
+            return;
+        }
+        synchronized (counts) {
+            entries.computeIfAbsent(key, k -> newBucket()).put(slot.sequence, slot.item);
+            count(key, 1);
+        }
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        Long key = keyOf(slot.item);
+        if (key == null) {
+            return;
+        }
+        synchronized (counts) {
+            NavigableMap<Long, T> bucket = entries.get(key);
+            if (bucket != null && bucket.remove(slot.sequence) != null) {
+                if (bucket.isEmpty()) {
+                    entries.remove(key);
+                }
+                count(key, -1);
+            }
+        }
+    }
+    
+    @Override
+    public void clear() {
+        synchronized (counts) {
+            entries.clear();
+            counts.clear();
+            countBeforeCursor = 0;
+        }
+    }
+    
+    public List<T> findBetween(long from, long to) {
+        if (from > to) {
+            return new ArrayList<>();
+        }
+        return flatten(entries.subMap(from, true, to, true));
+    }
+    
+    public List<T> findBefore(long key) {
+        return flatten(entries.headMap(key, false));
+    }
+    
+    public List<T> findFrom(long key) {
+        return flatten(entries.tailMap(key, true));
+    }
+    
+    public Stream<T> streamBetween(long from, long to) {
+        if (from > to) {
+            return Stream.empty();
+        }
+        return entries.subMap(from, true, to, true).values().stream()
+                .flatMap(bucket -> bucket.values().stream());
+    }
+    
+    public Stream<T> streamBefore(long key) {
+        return entries.headMap(key, false).values().stream()
+                .flatMap(bucket -> bucket.values().stream());
+    }
+    
+    public Stream<T> streamFrom(long key) {
+        return entries.tailMap(key, true).values().stream()
+                .flatMap(bucket -> bucket.values().stream());
+    }
+    
+    public long countBefore(long key) {
+        synchronized (counts) {
+            if (key > cursor) {
+                countBeforeCursor += sum(counts.subMap(cursor, true, key, false));
+            } else if (key < cursor) {
+                countBeforeCursor -= sum(counts.subMap(key, true, cursor, false));
+            }
+            cursor = key;
+            return countBeforeCursor;
+        }
+    }
+    
+    long countBetween(long from, long to) {
+        if (from > to) {
+            return 0;
+        }
+        synchronized (counts) {
+            return sum(counts.subMap(from, true, to, true));
+        }
+    }
+    
+    List<T> findBetweenInSequence(long from, long to) {
+        if (from > to) {
+            return new ArrayList<>();
+        }
+        NavigableMap<Long, T> ordered = new TreeMap<>();
+        for (NavigableMap<Long, T> bucket : entries.subMap(from, true, to, true).values()) {
+            ordered.putAll(bucket);
+        }
+        return new ArrayList<>(ordered.values());
+    }
+    
+    boolean matches(T item, long from, long to) {
+        Long key = keyOf(item);
+        return key != null && key >= from && key <= to;
+    }
+    
+    public static long key(LocalDate date) {
+        return date.toEpochDay();
+    }
+    
+    private List<T> flatten(NavigableMap<Long, NavigableMap<Long, T>> range) {
+        List<T> result = new ArrayList<>();
+        for (NavigableMap<Long, T> bucket : range.values()) {
+            result.addAll(bucket.values());
+        }
+        return result;
+    }
+    
+    private void count(long key, int delta) {
+        synchronized (counts) {
+            counts.merge(key, delta, (current, change) -> current + change == 0 ? null : current + change);
+            if (key < cursor) {
+                countBeforeCursor += delta;
+            }
+        }
+    }
+    
+    private static long sum(Map<Long, Integer> range) {
+        long total = 0;
+        for (int count : range.values()) {
+            total += count;
+        }
+        return total;
+    }
+    
+    private Long keyOf(T item) {
+        Object key = keyExtractor.extractKey(item);
+        if (key instanceof LocalDate date) {
+            return date.toEpochDay();
+        }
+        if (key instanceof Number number) {
+            return number.longValue();
+        }
+        return null;
+    }
+    
+    private NavigableMap<Long, T> newBucket() {
+        return concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+    }
+    
+    @Override
+    public String toString() {
+        return "RangeIndex{name=" + name + ", keys=" + entries.size() + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package ua.repository;
+
+import ua.library.Reader;
+import ua.util.InvalidDataException;
+import java.nio.ByteBuffer;
+
+final class ReaderRecordFields {
+    
+    static final int MAX_ID = 16;
+    static final int MAX_NAME = 48;
+    static final int SIZE = RecordCodec.stringField(MAX_ID) + 2 * RecordCodec.stringField(MAX_NAME);
+    
+    private ReaderRecordFields() {
+    }
+    
+    static void put(ByteBuffer record, int offset, Reader reader) {
+        RecordCodec.putString(record, offset, reader.readerId(), MAX_ID, "readerId");
+        RecordCodec.putString(record, offset + RecordCodec.stringField(MAX_ID), reader.firstName(), MAX_NAME, "firstName");
+        RecordCodec.putString(record, offset + RecordCodec.stringField(MAX_ID) + RecordCodec.stringField(MAX_NAME), 
+                              reader.lastName(), MAX_NAME, "lastName");
+    }
+    
+    static Reader get(ByteBuffer record, int offset) throws InvalidDataException {
+        return Reader.of(RecordCodec.getString(record, offset + RecordCodec.stringField(MAX_ID)), 
+                         RecordCodec.getString(record, offset + RecordCodec.stringField(MAX_ID) + RecordCodec.stringField(MAX_NAME)), 
+                         RecordCodec.getString(record, offset));
+    }
+    
+    static String id(ByteBuffer record, int offset) {
+        return RecordCodec.getString(record, offset);
+    }
+}
@@ -3,6 +3,7 @@ package ua.repository;
 import ua.library.Reader;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -10,93 +11,107 @@ public class ReaderRepository extends GenericRepository<Reader> {
     
     private static final Logger logger = Logger.getLogger(ReaderRepository.class.getName());
     
+    private final CountingIndex<Reader, String> lastNameCounts;
+    private final PrefixIndex<Reader> namePrefix;
+    
     public ReaderRepository() {
-        super(Reader::readerId);
+        this(false);
+    }
+    
+    public ReaderRepository(boolean concurrent) {
+        super(Reader::readerId, concurrent);
+        registerIndex("firstName", reader -> foldCase(reader.firstName()));
+        registerIndex("lastName", reader -> foldCase(reader.lastName()));
+        lastNameCounts = attachIndex("lastNameCount", CountingIndex.forKeys("lastNameCount", Reader::lastName));
+        namePrefix = attachIndex("namePrefix", new PrefixIndex<>("namePrefix", reader -> 
+                List.of(reader.getFullName(), reader.lastName() + " " + reader.firstName()), concurrent));
+        registerSortedView("byReaderId", Comparator.naturalOrder());
+        registerSortedView("byFirstName", Reader.byFirstName());
+        registerSortedView("byLastName", Reader.byLastName());
+        registerSortedView("byFullName", Reader.byFullName());
         logger.log(Level.INFO, "ReaderRepository initialized");
     }
     
     public List<Reader> sortByReaderId() {
         logger.log(Level.INFO, "Sorting readers by reader ID");
-        List<Reader> sorted = getAll();
-        sorted.sort(Reader::compareTo);
-        return sorted;
+        return findSorted("byReaderId");
     }
     
     public List<Reader> sortByFirstName() {
         logger.log(Level.INFO, "Sorting readers by first name");
-        List<Reader> sorted = getAll();
-        sorted.sort(Reader.byFirstName());
-        return sorted;
+        return findSorted("byFirstName");
     }
     
     public List<Reader> sortByLastName() {
         logger.log(Level.INFO, "Sorting readers by last name");
-        List<Reader> sorted = getAll();
-        sorted.sort(Reader.byLastName());
-        return sorted;
+        return findSorted("byLastName");
     }
     
     public List<Reader> sortByFullName() {
         logger.log(Level.INFO, "Sorting readers by full name");
-        List<Reader> sorted = getAll();
-        sorted.sort(Reader.byFullName());
-        return sorted;
+        return findSorted("byFullName");
     }
     
     public List<Reader> findByFirstName(String firstName) {
         logger.log(Level.INFO, "Searching readers by first name: {0}", firstName);
-        return getAll().stream()
-                .filter(reader -> reader.firstName().equalsIgnoreCase(firstName))
-                .collect(Collectors.toList());
+        return cached("findByFirstName", () -> findByIndex("firstName", foldCase(firstName)), firstName);
+    }
+    
+    public List<String> suggestNames(String prefix, int limit) {
+        logger.log(Level.FINE, "Suggesting reader names for prefix: {0}", prefix);
+        return namePrefix.complete(prefix, limit);
+    }
+    
+    public List<Reader> findByNamePrefix(String prefix, int limit) {
+        logger.log(Level.INFO, "Searching readers by name prefix: {0}", prefix);
+        return namePrefix.findByPrefix(prefix, limit);
     }
     
     public List<Reader> findByLastName(String lastName) {
         logger.log(Level.INFO, "Searching readers by last name: {0}", lastName);
-        return getAll().stream()
-                .filter(reader -> reader.lastName().equalsIgnoreCase(lastName))
-                .collect(Collectors.toList());
+        return cached("findByLastName", () -> findByIndex("lastName", foldCase(lastName)), lastName);
+    }
+    
+    public Stream<Reader> streamByLastName(String lastName) {
+        logger.log(Level.INFO, "Streaming readers by last name: {0}", lastName);
+        return streamByIndex("lastName", foldCase(lastName));
     }
     
     public List<Reader> findByFullNameContains(String keyword) {
         logger.log(Level.INFO, "Searching readers by full name containing: {0}", keyword);
-        return getAll().stream()
+        return cached("findByFullNameContains", () -> scan(items -> items
                 .filter(reader -> reader.getFullName().toLowerCase().contains(keyword.toLowerCase()))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())), keyword);
     }
     
     public Optional<Reader> findByReaderId(String readerId) {
         logger.log(Level.INFO, "Searching reader by ID: {0}", readerId);
-        return getAll().stream()
-                .filter(reader -> reader.readerId().equals(readerId))
-                .findFirst();
+        return Optional.ofNullable(findByIdentity(readerId));
     }
     
     public List<String> getAllFirstNames() {
         logger.log(Level.INFO, "Getting all first names");
-        return getAll().stream()
+        return cached("getAllFirstNames", () -> scan(items -> items
                 .map(Reader::firstName)
                 .distinct()
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())));
     }
     
     public Map<String, Long> countByLastName() {
         logger.log(Level.INFO, "Counting readers by last name");
-        return getAll().stream()
-                .collect(Collectors.groupingBy(Reader::lastName, Collectors.counting()));
+        return lastNameCounts.snapshot(getVersion());
     }
     
     public long countByFirstName(String firstName) {
         logger.log(Level.INFO, "Counting readers with first name: {0}", firstName);
-        return getAll().stream()
-                .filter(reader -> reader.firstName().equalsIgnoreCase(firstName))
-                .count();
+        return countByIndex("firstName", foldCase(firstName));
     }
     
     public List<String> getAllFullNames() {
         logger.log(Level.INFO, "Getting all full names");
-        return getAll().stream()
+        return cached("getAllFullNames", () -> scan(items -> items
                 .map(Reader::getFullName)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList())));
     }
 }
 
@@ -0,0 +1,78 @@
+package ua.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+public interface RecordCodec<T> {
+    
+    long NULL_DATE = Long.MIN_VALUE;
+    
+    int recordSize();
+    
+    Object identityOf(T item);
+    
+    Object identityAt(ByteBuffer record);
+    
+    default Object identityKey(Object identity) {
+        return identity;
+    }
+    
+    void encode(T item, ByteBuffer record);
+    
+    T decode(ByteBuffer record);
+    
+    static int stringField(int maxBytes) {
+        return Short.BYTES + maxBytes;
+    }
+    
+    static void putString(ByteBuffer record, int offset, String value, int maxBytes, String field) {
+        if (value == null) {
+            record.putShort(offset, (short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException(field + " exceeds " + maxBytes + " bytes: " + value);
+        }
+        record.putShort(offset, (short) bytes.length);
+        record.put(offset + Short.BYTES, bytes);
+    }
+    
+    static String getString(ByteBuffer record, int offset) {
+        int length = record.getShort(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    static RecordFilter stringEquals(int offset, String value) {
+        if (value == null) {
+            return record -> record.getShort(offset) < 0;
+        }
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        return record -> {
+            if (record.getShort(offset) != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (record.get(offset + Short.BYTES + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+    
+    static void putDate(ByteBuffer record, int offset, LocalDate date) {
+        record.putLong(offset, date == null ? NULL_DATE : date.toEpochDay());
+    }
+    
+    static LocalDate getDate(ByteBuffer record, int offset) {
+        long day = record.getLong(offset);
+        return day == NULL_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+}
@@ -0,0 +1,8 @@
+package ua.repository;
+
+import java.nio.ByteBuffer;
+
+@FunctionalInterface
+public interface RecordFilter {
+    boolean test(ByteBuffer record);
+}
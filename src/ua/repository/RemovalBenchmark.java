@@ -0,0 +1,144 @@
+package ua.repository;
+
+import ua.enums.BookStatus;
+import ua.library.Author;
+import ua.library.Book;
+import ua.util.InvalidDataException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class RemovalBenchmark {
+    
+    private static final int[] STORAGE_SIZES = {10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int[] BOOK_SIZES = {10_000, 100_000, 1_000_000};
+    private static final String[] TITLE_WORDS = {"Silent", "River", "Empire", "Garden", "Winter", "Shadow", "Letters",
+                                                 "Machine", "Harbor", "Promise", "Orchard", "Signal"};
+    private static final int AUTHORS = 500;
+    private static final int REMOVALS = 10_000;
+    private static final int ROUNDS = 5;
+    
+    public static void main(String[] args) throws InvalidDataException {
+        System.out.println("=== REPOSITORY REMOVAL BENCHMARK ===");
+        System.out.println("Run with -Xmx4g for the 10M case; arguments replace the bare storage sizes\n");
+        
+        Logger.getLogger(GenericRepository.class.getName()).setLevel(Level.WARNING);
+        Logger.getLogger(BookRepository.class.getName()).setLevel(Level.WARNING);
+        Logger.getLogger(Book.class.getName()).setLevel(Level.WARNING);
+        Logger.getLogger(Author.class.getName()).setLevel(Level.WARNING);
+        
+        int[] storageSizes = STORAGE_SIZES;
+        if (args.length > 0) {
+            storageSizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                storageSizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        
+        benchmark(storage(10_000));
+        
+        System.out.println("Bare storage: GenericRepository<Long> without indexes");
+        System.out.printf("%12s %14s %14s %18s%n", "items", "ns/remove", "ns/add", "ns/read+remove");
+        for (int size : storageSizes) {
+            long[] result = benchmark(storage(size));
+            System.out.printf("%12d %14d %14d %18d%n", size, result[0], result[1], result[2]);
+        }
+        
+        System.out.println("\nIndexed: BookRepository with every index it registers");
+        System.out.printf("%12s %14s %14s %18s%n", "books", "ns/remove", "ns/add", "ns/read+remove");
+        for (int size : BOOK_SIZES) {
+            long[] result = benchmark(books(size));
+            System.out.printf("%12d %14d %14d %18d%n", size, result[0], result[1], result[2]);
+        }
+    }
+    
+    private static Workload<Long> storage(int size) {
+        List<Long> items = new ArrayList<>(size);
+        GenericRepository<Long> repo = new GenericRepository<>(value -> value);
+        for (long i = 0; i < size; i++) {
+            Long item = i;
+            items.add(item);
+            repo.add(item);
+        }
+        return new Workload<>(repo, items);
+    }
+    
+    private static Workload<Book> books(int size) throws InvalidDataException {
+        List<Author> authors = new ArrayList<>(AUTHORS);
+        for (int i = 0; i < AUTHORS; i++) {
+            authors.add(Author.of("Author" + i, TITLE_WORDS[i % TITLE_WORDS.length] + "son", 1900 + i % 100));
+        }
+        List<Book> books = new ArrayList<>(size);
+        BookRepository repo = new BookRepository();
+        for (int i = 0; i < size; i++) {
+            Book book = Book.of(titleOf(i), authors.get(i % AUTHORS), String.format("%013d", 9780000000000L + i),
+                                BookStatus.values()[i % BookStatus.values().length]);
+            books.add(book);
+            repo.add(book);
+        }
+        return new Workload<>(repo, books);
+    }
+    
+    private static <T> long[] benchmark(Workload<T> workload) {
+        long bestRemove = Long.MAX_VALUE;
+        long bestAdd = Long.MAX_VALUE;
+        long bestMixed = Long.MAX_VALUE;
+        GenericRepository<T> repo = workload.repository();
+        int size = workload.items().size();
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            List<T> victims = pickVictims(workload.items(), round);
+            
+            long start = System.nanoTime();
+            for (T victim : victims) {
+                repo.remove(victim);
+            }
+            long removeTime = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            for (T victim : victims) {
+                repo.add(victim);
+            }
+            long addTime = System.nanoTime() - start;
+            
+            long checksum = 0;
+            start = System.nanoTime();
+            for (T victim : victims) {
+                checksum += repo.getAll().size();
+                repo.remove(victim);
+            }
+            long mixedTime = System.nanoTime() - start;
+            for (T victim : victims) {
+                repo.add(victim);
+            }
+            
+            if (repo.size() != size || checksum <= 0) {
+                throw new IllegalStateException("Repository size mismatch: " + repo.size());
+            }
+            bestRemove = Math.min(bestRemove, removeTime / victims.size());
+            bestAdd = Math.min(bestAdd, addTime / victims.size());
+            bestMixed = Math.min(bestMixed, mixedTime / victims.size());
+        }
+        
+        return new long[]{bestRemove, bestAdd, bestMixed};
+    }
+    
+    private static String titleOf(int i) {
+        return TITLE_WORDS[i % TITLE_WORDS.length] + " " + TITLE_WORDS[(i / TITLE_WORDS.length) % TITLE_WORDS.length] + " " + i;
+    }
+    
+    private static <T> List<T> pickVictims(List<T> items, long seed) {
+        int count = Math.min(REMOVALS, items.size());
+        List<T> victims = new ArrayList<>(count);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            victims.add(items.get(random.nextInt(items.size())));
+        }
+        return new ArrayList<>(new LinkedHashSet<>(victims));
+    }
+    
+    private record Workload<T>(GenericRepository<T> repository, List<T> items) {}
+}
@@ -0,0 +1,17 @@
+package ua.repository;
+
+interface RepositoryIndex<T> {
+    
+    void add(Slot<T> slot);
+    
+    void remove(Slot<T> slot);
+    
+    void clear();
+    
+    default void compacted(SlotTable<T> slots) {
+    }
+    
+    default boolean positional() {
+        return false;
+    }
+}
@@ -0,0 +1,309 @@
+package ua.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class RepositoryJournal implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(RepositoryJournal.class.getName());
+    
+    private static final int FRAME_HEADER = 2 * Integer.BYTES;
+    private static final int MAX_ENTRY = 1 << 24;
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final int maxBuffered;
+    private final int syncBatch;
+    private final long syncIntervalMillis;
+    private final CRC32 crc;
+    private final Thread committer;
+    private ByteBuffer active;
+    private ByteBuffer spare;
+    private long sequence;
+    private long durable;
+    private long requested;
+    private long bytes;
+    private IOException failure;
+    private boolean closed;
+    
+    public RepositoryJournal(Path path, int bufferSize, int maxBuffered, int syncBatch, long syncIntervalMillis) 
+            throws IOException {
+        if (bufferSize < FRAME_HEADER + 1) {
+            throw new IllegalArgumentException("Journal buffer is too small: " + bufferSize);
+        }
+        if (maxBuffered < bufferSize) {
+            throw new IllegalArgumentException("Journal buffer cap is below the buffer size: " + maxBuffered);
+        }
+        if (syncBatch < 1) {
+            throw new IllegalArgumentException("Journal sync batch must be positive: " + syncBatch);
+        }
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        this.bytes = validLength(channel);
+        channel.truncate(bytes);
+        channel.position(bytes);
+        this.active = ByteBuffer.allocate(bufferSize);
+        this.spare = ByteBuffer.allocate(bufferSize);
+        this.maxBuffered = maxBuffered;
+        this.syncBatch = syncBatch;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.crc = new CRC32();
+        this.committer = new Thread(this::commitLoop, "journal-committer");
+        committer.setDaemon(true);
+        committer.start();
+        logger.log(Level.INFO, "Journal opened: {0} ({1} bytes)", new Object[]{path, bytes});
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    public synchronized long size() {
+        return bytes;
+    }
+    
+    public synchronized long getSequence() {
+        return sequence;
+    }
+    
+    public synchronized long getDurableSequence() {
+        return durable;
+    }
+    
+    public long append(byte[] entry) {
+        if (entry == null || entry.length == 0 || entry.length > MAX_ENTRY) {
+            throw new IllegalArgumentException("Invalid journal entry size: " + (entry == null ? 0 : entry.length));
+        }
+        int frame = FRAME_HEADER + entry.length;
+        synchronized (this) {
+            ensureWritable();
+            while (active.position() > 0 && active.position() + frame > maxBuffered) {
+                requested = Math.max(requested, sequence);
+                notifyAll();
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new IOException("Interrupted while waiting for journal buffer space", e));
+                }
+                ensureWritable();
+            }
+            crc.reset();
+            crc.update(entry);
+            if (active.remaining() < frame) {
+                int capacity = Math.min(active.capacity() * 2, maxBuffered);
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(capacity, active.position() + frame));
+                active.flip();
+                active = larger.put(active);
+            }
+            active.putInt(entry.length).putInt((int) crc.getValue()).put(entry);
+            bytes += frame;
+            long seq = ++sequence;
+            if (seq - durable == syncBatch) {
+                notifyAll();
+            }
+            return seq;
+        }
+    }
+    
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed: " + path);
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(new IOException("Journal write failed: " + path, failure));
+        }
+    }
+    
+    public void sync() throws IOException {
+        long seq;
+        synchronized (this) {
+            seq = sequence;
+        }
+        commit(seq);
+    }
+    
+    public synchronized void commit(long seq) throws IOException {
+        long target = Math.min(seq, sequence);
+        if (durable >= target) {
+            return;
+        }
+        requested = Math.max(requested, target);
+        notifyAll();
+        while (durable < target) {
+            if (failure != null) {
+                throw new IOException("Journal write failed: " + path, failure);
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for journal commit", e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        IOException error = null;
+        try {
+            sync();
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (error != null) {
+            throw error;
+        }
+        logger.log(Level.INFO, "Journal closed: {0} ({1} entries)", new Object[]{path, sequence});
+    }
+    
+    public static List<byte[]> read(Path path) throws IOException {
+        List<byte[]> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            scan(channel, entries);
+        }
+        logger.log(Level.INFO, "Journal {0} read: {1} entries", new Object[]{path, entries.size()});
+        return entries;
+    }
+    
+    private void commitLoop() {
+        while (true) {
+            ByteBuffer data;
+            long target;
+            synchronized (this) {
+                try {
+                    awaitWork();
+                } catch (InterruptedException e) {
+                    failure = new IOException("Journal committer was interrupted", e);
+                    notifyAll();
+                    return;
+                }
+                if (sequence == durable) {
+                    return;
+                }
+                target = sequence;
+                data = active;
+                active = spare;
+                spare = null;
+            }
+            try {
+                data.flip();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Journal write failed for {0}: {1}", new Object[]{path, e.getMessage()});
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                data.clear();
+                spare = data;
+                durable = target;
+                notifyAll();
+            }
+            logger.log(Level.FINE, "Journal committed up to entry {0}", target);
+        }
+    }
+    
+    private void awaitWork() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + syncIntervalMillis;
+        while (sequence == durable || (requested <= durable && sequence - durable < syncBatch)) {
+            if (closed) {
+                return;
+            }
+            if (syncIntervalMillis <= 0) {
+                wait();
+                continue;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                if (sequence > durable) {
+                    return;
+                }
+                deadline = System.currentTimeMillis() + syncIntervalMillis;
+                remaining = syncIntervalMillis;
+            }
+            wait(remaining);
+        }
+    }
+    
+    private static long validLength(FileChannel channel) throws IOException {
+        channel.position(0);
+        return scan(channel, null);
+    }
+    
+    private static long scan(FileChannel channel, List<byte[]> entries) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        CRC32 crc = new CRC32();
+        while (position + FRAME_HEADER <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (length <= 0 || length > MAX_ENTRY || position + FRAME_HEADER + length > size) {
+                break;
+            }
+            byte[] entry = new byte[length];
+            readFully(channel, ByteBuffer.wrap(entry), position + FRAME_HEADER);
+            crc.reset();
+            crc.update(entry);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (entries != null) {
+                entries.add(entry);
+            }
+            position += FRAME_HEADER + length;
+        }
+        if (position < size) {
+            logger.log(Level.WARNING, "Ignoring {0} trailing journal bytes after a torn or corrupt entry", size - position);
+        }
+        return position;
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ua.repository;
+
+public interface RepositoryListener<T> {
+    
+    default void adding(T item) {
+    }
+    
+    default void removing(T item) {
+    }
+    
+    default void changing(T item, Object previousIdentity, String field) {
+    }
+    
+    default void clearing() {
+    }
+    
+    void added(T item);
+    
+    void removed(T item);
+    
+    void changed(T item, Object previousIdentity, String field);
+    
+    void cleared();
+}
@@ -2,33 +2,36 @@ package ua.repository;
 
 import ua.library.*;
 import ua.util.*;
-import java.util.List;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 public class RepositorySerializer {
     
     private static final Logger logger = Logger.getLogger(RepositorySerializer.class.getName());
+    private static final int SNAPSHOT_BUFFER = ConfigLoader.getIntProperty("snapshot.buffer", 1 << 18);
     
     public static void saveBookRepository(BookRepository repo) throws DataSerializationException {
         String jsonPath = ConfigLoader.getJsonPath("books");
         String yamlPath = ConfigLoader.getYamlPath("books");
         
-        List<Book> books = repo.getAll();
-        DataSerializer.saveToJson(books, jsonPath, Book.class);
-        DataSerializer.saveToYaml(books, yamlPath, Book.class);
+        long bytes = DataSerializer.streamToJson(repo.iterator(), jsonPath);
+        DataSerializer.saveToYaml(repo.getAll(), yamlPath, Book.class);
         
-        logger.log(Level.INFO, "BookRepository saved to JSON and YAML");
+        logger.log(Level.INFO, "BookRepository saved to JSON ({0} bytes) and YAML", bytes);
     }
     
     public static BookRepository loadBookRepository() throws DataSerializationException {
         String jsonPath = ConfigLoader.getJsonPath("books");
         BookRepository repo = new BookRepository();
         
-        List<Book> books = DataSerializer.loadFromJson(jsonPath, Book.class);
-        books.forEach(repo::add);
+        int books = DataSerializer.streamFromJson(jsonPath, Book.class, repo::addAll);
         
-        logger.log(Level.INFO, "BookRepository loaded from JSON with {0} books", books.size());
+        logger.log(Level.INFO, "BookRepository loaded from JSON with {0} books", books);
         return repo;
     }
     
@@ -36,10 +39,9 @@ public class RepositorySerializer {
         String yamlPath = ConfigLoader.getYamlPath("books");
         BookRepository repo = new BookRepository();
         
-        List<Book> books = DataSerializer.loadFromYaml(yamlPath, Book.class);
-        books.forEach(repo::add);
+        int books = DataSerializer.streamFromYaml(yamlPath, Book.class, repo::addAll);
         
-        logger.log(Level.INFO, "BookRepository loaded from YAML with {0} books", books.size());
+        logger.log(Level.INFO, "BookRepository loaded from YAML with {0} books", books);
         return repo;
     }
     
@@ -47,21 +49,19 @@ public class RepositorySerializer {
         String jsonPath = ConfigLoader.getJsonPath("readers");
         String yamlPath = ConfigLoader.getYamlPath("readers");
         
-        List<Reader> readers = repo.getAll();
-        DataSerializer.saveToJson(readers, jsonPath, Reader.class);
-        DataSerializer.saveToYaml(readers, yamlPath, Reader.class);
+        long bytes = DataSerializer.streamToJson(repo.iterator(), jsonPath);
+        DataSerializer.saveToYaml(repo.getAll(), yamlPath, Reader.class);
         
-        logger.log(Level.INFO, "ReaderRepository saved to JSON and YAML");
+        logger.log(Level.INFO, "ReaderRepository saved to JSON ({0} bytes) and YAML", bytes);
     }
     
     public static ReaderRepository loadReaderRepository() throws DataSerializationException {
         String jsonPath = ConfigLoader.getJsonPath("readers");
         ReaderRepository repo = new ReaderRepository();
         
-        List<Reader> readers = DataSerializer.loadFromJson(jsonPath, Reader.class);
-        readers.forEach(repo::add);
+        int readers = DataSerializer.streamFromJson(jsonPath, Reader.class, repo::addAll);
         
-        logger.log(Level.INFO, "ReaderRepository loaded from JSON with {0} readers", readers.size());
+        logger.log(Level.INFO, "ReaderRepository loaded from JSON with {0} readers", readers);
         return repo;
     }
     
@@ -69,21 +69,19 @@ public class RepositorySerializer {
         String jsonPath = ConfigLoader.getJsonPath("authors");
         String yamlPath = ConfigLoader.getYamlPath("authors");
         
-        List<Author> authors = repo.getAll();
-        DataSerializer.saveToJson(authors, jsonPath, Author.class);
-        DataSerializer.saveToYaml(authors, yamlPath, Author.class);
+        long bytes = DataSerializer.streamToJson(repo.iterator(), jsonPath);
+        DataSerializer.saveToYaml(repo.getAll(), yamlPath, Author.class);
         
-        logger.log(Level.INFO, "AuthorRepository saved to JSON and YAML");
+        logger.log(Level.INFO, "AuthorRepository saved to JSON ({0} bytes) and YAML", bytes);
     }
     
     public static AuthorRepository loadAuthorRepository() throws DataSerializationException {
         String jsonPath = ConfigLoader.getJsonPath("authors");
         AuthorRepository repo = new AuthorRepository();
         
-        List<Author> authors = DataSerializer.loadFromJson(jsonPath, Author.class);
-        authors.forEach(repo::add);
+        int authors = DataSerializer.streamFromJson(jsonPath, Author.class, repo::addAll);
         
-        logger.log(Level.INFO, "AuthorRepository loaded from JSON with {0} authors", authors.size());
+        logger.log(Level.INFO, "AuthorRepository loaded from JSON with {0} authors", authors);
         return repo;
     }
     
@@ -91,21 +89,19 @@ public class RepositorySerializer {
         String jsonPath = ConfigLoader.getJsonPath("loans");
         String yamlPath = ConfigLoader.getYamlPath("loans");
         
-        List<Loan> loans = repo.getAll();
-        DataSerializer.saveToJson(loans, jsonPath, Loan.class);
-        DataSerializer.saveToYaml(loans, yamlPath, Loan.class);
+        long bytes = DataSerializer.streamToJson(repo.iterator(), jsonPath);
+        DataSerializer.saveToYaml(repo.getAll(), yamlPath, Loan.class);
         
-        logger.log(Level.INFO, "LoanRepository saved to JSON and YAML");
+        logger.log(Level.INFO, "LoanRepository saved to JSON ({0} bytes) and YAML", bytes);
     }
     
     public static LoanRepository loadLoanRepository() throws DataSerializationException {
         String jsonPath = ConfigLoader.getJsonPath("loans");
         LoanRepository repo = new LoanRepository();
         
-        List<Loan> loans = DataSerializer.loadFromJson(jsonPath, Loan.class);
-        loans.forEach(repo::add);
+        int loans = DataSerializer.streamFromJson(jsonPath, Loan.class, repo::addAll);
         
-        logger.log(Level.INFO, "LoanRepository loaded from JSON with {0} loans", loans.size());
+        logger.log(Level.INFO, "LoanRepository loaded from JSON with {0} loans", loans);
         return repo;
     }
     
@@ -113,22 +109,68 @@ public class RepositorySerializer {
         String jsonPath = ConfigLoader.getJsonPath("memberships");
         String yamlPath = ConfigLoader.getYamlPath("memberships");
         
-        List<Membership> memberships = repo.getAll();
-        DataSerializer.saveToJson(memberships, jsonPath, Membership.class);
-        DataSerializer.saveToYaml(memberships, yamlPath, Membership.class);
+        long bytes = DataSerializer.streamToJson(repo.iterator(), jsonPath);
+        DataSerializer.saveToYaml(repo.getAll(), yamlPath, Membership.class);
         
-        logger.log(Level.INFO, "MembershipRepository saved to JSON and YAML");
+        logger.log(Level.INFO, "MembershipRepository saved to JSON ({0} bytes) and YAML", bytes);
     }
     
     public static MembershipRepository loadMembershipRepository() throws DataSerializationException {
         String jsonPath = ConfigLoader.getJsonPath("memberships");
         MembershipRepository repo = new MembershipRepository();
         
-        List<Membership> memberships = DataSerializer.loadFromJson(jsonPath, Membership.class);
-        memberships.forEach(repo::add);
+        int memberships = DataSerializer.streamFromJson(jsonPath, Membership.class, repo::addAll);
         
-        logger.log(Level.INFO, "MembershipRepository loaded from JSON with {0} memberships", memberships.size());
+        logger.log(Level.INFO, "MembershipRepository loaded from JSON with {0} memberships", memberships);
         return repo;
     }
+    
+    public static long saveSnapshot(LibraryRepositories repositories) throws DataSerializationException {
+        return saveSnapshot(repositories, ConfigLoader.getProperty("snapshot.path", "data/library.snapshot"));
+    }
+    
+    public static long saveSnapshot(LibraryRepositories repositories, String filePath) throws DataSerializationException {
+        Path path = Path.of(filePath);
+        long bytes;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                bytes = new SnapshotWriter(channel, SNAPSHOT_BUFFER).write(repositories);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error saving snapshot {0}: {1}", new Object[]{filePath, e.getMessage()});
+            throw new DataSerializationException("Failed to save snapshot: " + filePath, e);
+        }
+        
+        logger.log(Level.INFO, "Repositories saved to snapshot {0} ({1} bytes)", new Object[]{filePath, bytes});
+        return bytes;
+    }
+    
+    public static LibraryRepositories loadSnapshot() throws DataSerializationException {
+        return loadSnapshot(ConfigLoader.getProperty("snapshot.path", "data/library.snapshot"));
+    }
+    
+    public static LibraryRepositories loadSnapshot(String filePath) throws DataSerializationException {
+        Path path = Path.of(filePath);
+        if (!Files.exists(path)) {
+            logger.log(Level.WARNING, "Snapshot file not found: {0}", filePath);
+            throw new DataSerializationException("File not found: " + filePath);
+        }
+        
+        LibraryRepositories repositories;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            repositories = new SnapshotReader(channel, SNAPSHOT_BUFFER).read(LibraryRepositories.empty());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error loading snapshot {0}: {1}", new Object[]{filePath, e.getMessage()});
+            throw new DataSerializationException("Failed to load snapshot: " + filePath, e);
+        }
+        
+        logger.log(Level.INFO, "Repositories loaded from snapshot {0}: {1} books, {2} loans", 
+                   new Object[]{filePath, repositories.books().size(), repositories.loans().size()});
+        return repositories;
+    }
 }
-
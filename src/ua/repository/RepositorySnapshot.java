@@ -0,0 +1,128 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+public final class RepositorySnapshot<T> extends AbstractList<T> {
+    
+    private final SlotTable.Frozen<T> slots;
+    private final int end;
+    private final int size;
+    private final long version;
+    private final long epoch;
+    private final Map<String, BitmapIndex.Frozen> bitmaps;
+    private volatile int[] positions;
+    
+    RepositorySnapshot(SlotTable.Frozen<T> slots, int end, int size, long version, long epoch, 
+                       Map<String, BitmapIndex.Frozen> bitmaps) {
+        this.slots = slots;
+        this.end = end;
+        this.size = size;
+        this.version = version;
+        this.epoch = epoch;
+        this.bitmaps = bitmaps;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    long epoch() {
+        return epoch;
+    }
+    
+    BitmapIndex.Frozen bitmap(String name) {
+        return bitmaps.get(name);
+    }
+    
+    Slot<T> slotAt(int position) {
+        return position < end ? slots.get(position) : null;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (end == size) {
+            return slots.get(index).item;
+        }
+        return slots.get(positions()[index]).item;
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int cursor;
+            private Object[] leaf;
+            private Slot<T> next = advance();
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+            
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T item = next.item;
+                next = advance();
+                return item;
+            }
+            
+            private Slot<T> advance() {
+                while (cursor < end) {
+                    if (leaf == null || (cursor & SlotTable.MASK) == 0) {
+                        leaf = slots.leaf(cursor);
+                    }
+                    Slot<T> slot = SlotTable.Frozen.slotIn(leaf, cursor++);
+                    if (slot != null) {
+                        return slot;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+    
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        slots.forEach(0, end, slot -> action.accept(slot.item));
+    }
+    
+    @Override
+    public Spliterator<T> spliterator() {
+        return new SlotSpliterator<>(slots, 0, end, size);
+    }
+    
+    void forEachSlot(Consumer<Slot<T>> action) {
+        slots.forEach(0, end, action);
+    }
+    
+    private int[] positions() {
+        int[] result = positions;
+        if (result == null) {
+            result = new int[size];
+            int next = 0;
+            Object[] leaf = null;
+            for (int i = 0; i < end; i++) {
+                if ((i & SlotTable.MASK) == 0) {
+                    leaf = slots.leaf(i);
+                }
+                if (SlotTable.Frozen.slotIn(leaf, i) != null) {
+                    result[next++] = i;
+                }
+            }
+            positions = result;
+        }
+        return result;
+    }
+}
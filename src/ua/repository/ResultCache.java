@@ -0,0 +1,95 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+final class ResultCache {
+    
+    private static final Logger logger = Logger.getLogger(ResultCache.class.getName());
+    
+    private record Key(String query, List<Object> parameters) {}
+    
+    private record Entry(long version, Object value) {}
+    
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    
+    ResultCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 256), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ResultCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        
+        logger.log(Level.FINE, "ResultCache initialized with {0} entries", maxEntries);
+    }
+    
+    static Object key(String query, Object[] parameters) {
+        return new Key(query, Arrays.asList(parameters));
+    }
+    
+    Object get(Object key, long version) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get((Key) key);
+        }
+        if (entry == null || entry.version() != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+    
+    void put(Object key, long version, Object value) {
+        synchronized (entries) {
+            entries.put((Key) key, new Entry(version, value));
+        }
+    }
+    
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    long hits() {
+        return hits.sum();
+    }
+    
+    long misses() {
+        return misses.sum();
+    }
+    
+    long evictions() {
+        return evictions.sum();
+    }
+    
+    @Override
+    public String toString() {
+        return "ResultCache{size=" + size() + ", hits=" + hits() + ", misses=" + misses() + "}";
+    }
+}
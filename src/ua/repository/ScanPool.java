@@ -0,0 +1,42 @@
+package ua.repository;
+
+import ua.util.ConfigLoader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+final class ScanPool {
+    
+    private static final Logger logger = Logger.getLogger(ScanPool.class.getName());
+    
+    static final int DEFAULT_THRESHOLD = ConfigLoader.getIntProperty("repository.parallel.threshold", 50_000);
+    
+    private ScanPool() {
+    }
+    
+    private static final class Holder {
+        
+        private static final ForkJoinPool POOL = create();
+        
+        private static ForkJoinPool create() {
+            int parallelism = ConfigLoader.getIntProperty("repository.parallel.workers", 
+                                                          Runtime.getRuntime().availableProcessors());
+            parallelism = Math.max(1, parallelism);
+            logger.log(Level.INFO, "Starting repository scan pool with {0} workers", parallelism);
+            return new ForkJoinPool(parallelism, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("repository-scan-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+    }
+    
+    static ForkJoinPool pool() {
+        return Holder.POOL;
+    }
+    
+    static boolean inPool() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == Holder.POOL;
+    }
+}
@@ -0,0 +1,143 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class SecondaryIndex<T> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(SecondaryIndex.class.getName());
+    
+    private final String name;
+    private final IndexKeyExtractor<T> keyExtractor;
+    private final boolean concurrent;
+    private final boolean multiValued;
+    private final Map<Object, NavigableMap<Long, T>> buckets;
+    
+    public SecondaryIndex(String name, IndexKeyExtractor<T> keyExtractor) {
+        this(name, keyExtractor, false);
+    }
+    
+    public SecondaryIndex(String name, IndexKeyExtractor<T> keyExtractor, boolean concurrent) {
+        this(name, keyExtractor, concurrent, false);
+    }
+    
+    public SecondaryIndex(String name, IndexKeyExtractor<T> keyExtractor, boolean concurrent, boolean multiValued) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Index name cannot be null or empty");
+        }
+        if (keyExtractor == null) {
+            throw new IllegalArgumentException("Index key extractor cannot be null");
+        }
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+        this.concurrent = concurrent;
+        this.multiValued = multiValued;
+        this.buckets = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        
+        logger.log(Level.FINE, "SecondaryIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        for (Object key : keysOf(slot.item)) {
+            buckets.compute(key, (k, bucket) -> {
+                NavigableMap<Long, T> target = bucket == null ? newBucket() : bucket;
+                target.put(slot.sequence, slot.item);
+                return target;
+            });
+        }
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        for (Object key : keysOf(slot.item)) {
+            buckets.computeIfPresent(key, (k, bucket) -> {
+                bucket.remove(slot.sequence);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+    
+    @Override
+    public void clear() {
+        buckets.clear();
+    }
+    
+    public List<T> find(Object key) {
+        if (key == null) {
+            return new ArrayList<>();
+        }
+        NavigableMap<Long, T> bucket = buckets.get(key);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+    
+    public Stream<T> stream(Object key) {
+        NavigableMap<Long, T> bucket = key == null ? null : buckets.get(key);
+        return bucket == null ? Stream.empty() : bucket.values().stream();
+    }
+    
+    public Optional<T> findFirst(Object key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        NavigableMap<Long, T> bucket = buckets.get(key);
+        if (bucket == null) {
+            return Optional.empty();
+        }
+        Map.Entry<Long, T> first = bucket.firstEntry();
+        return first == null ? Optional.empty() : Optional.of(first.getValue());
+    }
+    
+    public int count(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        NavigableMap<Long, T> bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.size();
+    }
+    
+    boolean matches(T item, Object key) {
+        return key != null && keysOf(item).contains(key);
+    }
+    
+    public Set<Object> keys() {
+        return Collections.unmodifiableSet(buckets.keySet());
+    }
+    
+    private Collection<Object> keysOf(T item) {
+        Object key = keyExtractor.extractKey(item);
+        if (key == null) {
+            return List.of();
+        }
+        if (!multiValued) {
+            return List.of(key);
+        }
+        if (!(key instanceof Iterable<?> values)) {
+            throw new IllegalArgumentException("Multi-valued index " + name + " expects an Iterable of keys");
+        }
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Object value : values) {
+            if (value != null) {
+                keys.add(value);
+            }
+        }
+        return keys;
+    }
+    
+    private NavigableMap<Long, T> newBucket() {
+        return concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+    }
+    
+    @Override
+    public String toString() {
+        return "SecondaryIndex{name=" + name + ", keys=" + buckets.size() + "}";
+    }
+}
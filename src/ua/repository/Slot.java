@@ -0,0 +1,16 @@
+package ua.repository;
+
+final class Slot<T> {
+    
+    final Object identity;
+    final T item;
+    final long sequence;
+    int position;
+    
+    Slot(Object identity, T item, int position, long sequence) {
+        this.identity = identity;
+        this.item = item;
+        this.position = position;
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,73 @@
+package ua.repository;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+final class SlotSpliterator<T> implements Spliterator<T> {
+    
+    private static final int MIN_SPLIT = 1024;
+    
+    private final SlotTable.Frozen<T> slots;
+    private int origin;
+    private final int fence;
+    private long exact;
+    
+    SlotSpliterator(SlotTable.Frozen<T> slots, int origin, int fence, long live) {
+        this.slots = slots;
+        this.origin = origin;
+        this.fence = fence;
+        this.exact = live;
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (origin < fence) {
+            Slot<T> slot = slots.get(origin++);
+            if (slot != null) {
+                if (exact > 0) {
+                    exact--;
+                }
+                action.accept(slot.item);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        slots.forEach(origin, fence, slot -> action.accept(slot.item));
+        origin = fence;
+        exact = exact < 0 ? exact : 0;
+    }
+    
+    @Override
+    public Spliterator<T> trySplit() {
+        int remaining = fence - origin;
+        if (remaining < MIN_SPLIT) {
+            return null;
+        }
+        int middle = origin + (remaining >>> 1);
+        boolean holeFree = exact == remaining;
+        Spliterator<T> prefix = new SlotSpliterator<>(slots, origin, middle, holeFree ? middle - origin : -1);
+        origin = middle;
+        exact = holeFree ? fence - middle : -1;
+        return prefix;
+    }
+    
+    @Override
+    public long estimateSize() {
+        return exact >= 0 ? exact : fence - origin;
+    }
+    
+    @Override
+    public int characteristics() {
+        if (exact < 0) {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+        if (exact == fence - origin) {
+            return ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+        }
+        return ORDERED | NONNULL | IMMUTABLE | SIZED;
+    }
+}
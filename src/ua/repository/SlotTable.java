@@ -0,0 +1,141 @@
+package ua.repository;
+
+import java.util.function.Consumer;
+
+final class SlotTable<T> {
+    
+    static final int SHIFT = 6;
+    static final int WIDTH = 1 << SHIFT;
+    static final int MASK = WIDTH - 1;
+    
+    private Object[] root;
+    private int shift;
+    private Object owner;
+    private int end;
+    
+    SlotTable() {
+        this.owner = new Object();
+        this.root = newNode(owner);
+    }
+    
+    int end() {
+        return end;
+    }
+    
+    Slot<T> get(int position) {
+        return Frozen.slotAt(root, shift, position);
+    }
+    
+    void append(Slot<T> slot) {
+        if (end == capacity()) {
+            Object[] grown = newNode(owner);
+            grown[0] = root;
+            root = grown;
+            shift += SHIFT;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= SHIFT) {
+            int index = (end >>> level) & MASK;
+            Object[] child = (Object[]) node[index];
+            if (child == null) {
+                child = newNode(owner);
+                node[index] = child;
+            }
+            node = child;
+        }
+        node[end & MASK] = slot;
+        end++;
+    }
+    
+    void set(int position, Slot<T> slot) {
+        root = owned(root);
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= SHIFT) {
+            int index = (position >>> level) & MASK;
+            Object[] child = owned((Object[]) node[index]);
+            node[index] = child;
+            node = child;
+        }
+        node[position & MASK] = slot;
+    }
+    
+    Frozen<T> freeze() {
+        owner = new Object();
+        return new Frozen<>(root, shift);
+    }
+    
+    SlotTable<T> compacted() {
+        SlotTable<T> table = new SlotTable<>();
+        for (int i = 0; i < end; i++) {
+            Slot<T> slot = get(i);
+            if (slot != null) {
+                slot.position = table.end;
+                table.append(slot);
+            }
+        }
+        return table;
+    }
+    
+    private int capacity() {
+        return shift + SHIFT >= Integer.SIZE - 1 ? Integer.MAX_VALUE : 1 << (shift + SHIFT);
+    }
+    
+    private Object[] owned(Object[] node) {
+        if (node[WIDTH] == owner) {
+            return node;
+        }
+        Object[] copy = node.clone();
+        copy[WIDTH] = owner;
+        return copy;
+    }
+    
+    private static Object[] newNode(Object owner) {
+        Object[] node = new Object[WIDTH + 1];
+        node[WIDTH] = owner;
+        return node;
+    }
+    
+    record Frozen<T>(Object[] root, int shift) {
+        
+        Slot<T> get(int position) {
+            return slotAt(root, shift, position);
+        }
+        
+        @SuppressWarnings("unchecked")
+        void forEach(int from, int to, Consumer<? super Slot<T>> action) {
+            int position = from;
+            while (position < to) {
+                Object[] leaf = leaf(position);
+                int stop = Math.min(to, (position | MASK) + 1);
+                for (; position < stop; position++) {
+                    Slot<T> slot = (Slot<T>) leaf[position & MASK];
+                    if (slot != null) {
+                        action.accept(slot);
+                    }
+                }
+            }
+        }
+        
+        Object[] leaf(int position) {
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= SHIFT) {
+                node = (Object[]) node[(position >>> level) & MASK];
+            }
+            return node;
+        }
+        
+        @SuppressWarnings("unchecked")
+        static <T> Slot<T> slotIn(Object[] leaf, int position) {
+            return (Slot<T>) leaf[position & MASK];
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static <T> Slot<T> slotAt(Object[] root, int shift, int position) {
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= SHIFT) {
+                node = (Object[]) node[(position >>> level) & MASK];
+            }
+            return (Slot<T>) node[position & MASK];
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package ua.repository;
+
+import ua.library.*;
+import ua.enums.BookStatus;
+import ua.enums.MembershipType;
+import ua.util.InvalidDataException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+class SnapshotReader {
+    
+    private static final Logger logger = Logger.getLogger(SnapshotReader.class.getName());
+    
+    private static final BookStatus[] BOOK_STATUSES = BookStatus.values();
+    private static final MembershipType[] MEMBERSHIP_TYPES = MembershipType.values();
+    private static final int ENTITY_BUFFER = 256;
+    
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final List<String> strings;
+    private final List<Author> authors;
+    private final List<Reader> readers;
+    private final List<Book> books;
+    
+    SnapshotReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 64));
+        this.buffer.flip();
+        this.strings = new ArrayList<>();
+        this.authors = new ArrayList<>();
+        this.readers = new ArrayList<>();
+        this.books = new ArrayList<>();
+    }
+    
+    LibraryRepositories read(LibraryRepositories target) throws IOException {
+        require(6);
+        int magic = buffer.getInt();
+        short version = buffer.getShort();
+        if (magic != SnapshotWriter.MAGIC) {
+            throw new IOException("Not a repository snapshot");
+        }
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + SnapshotWriter.VERSION);
+        }
+        
+        readSection(SnapshotWriter.AUTHORS, this::readAuthor, target.authors());
+        readSection(SnapshotWriter.READERS, this::readReader, target.readers());
+        readSection(SnapshotWriter.BOOKS, this::readBook, target.books());
+        readSection(SnapshotWriter.LOANS, this::readLoan, target.loans());
+        readSection(SnapshotWriter.MEMBERSHIPS, this::readMembership, target.memberships());
+        
+        require(1);
+        if (buffer.get() != SnapshotWriter.END) {
+            throw new IOException("Snapshot is missing its end marker");
+        }
+        logger.log(Level.FINE, "Snapshot read: {0} distinct strings", strings.size());
+        return target;
+    }
+    
+    static Object decodeEntity(byte kind, byte[] data, int offset, int length) throws IOException, InvalidDataException {
+        SnapshotReader reader = new SnapshotReader(Channels.newChannel(new ByteArrayInputStream(data, offset, length)), 
+                                                   ENTITY_BUFFER);
+        return switch (kind) {
+            case SnapshotWriter.AUTHORS -> reader.readAuthor();
+            case SnapshotWriter.READERS -> reader.readReader();
+            case SnapshotWriter.BOOKS -> reader.readBook();
+            case SnapshotWriter.LOANS -> reader.readLoan();
+            case SnapshotWriter.MEMBERSHIPS -> reader.readMembership();
+            default -> throw new IOException("Unknown snapshot section " + kind);
+        };
+    }
+    
+    private interface Decoder<T> {
+        T decode() throws IOException, InvalidDataException;
+    }
+    
+    private <T> void readSection(byte tag, Decoder<T> decoder, GenericRepository<T> target) throws IOException {
+        require(1);
+        byte actual = buffer.get();
+        if (actual != tag) {
+            throw new IOException("Expected snapshot section " + tag + " but found " + actual);
+        }
+        int count = readCount();
+        try {
+            target.addAll(IntStream.range(0, count).mapToObj(i -> decode(decoder)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static <T> T decode(Decoder<T> decoder) {
+        try {
+            return decoder.decode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InvalidDataException e) {
+            throw new UncheckedIOException(new IOException("Snapshot contains an invalid entity: " + e.getMessage(), e));
+        }
+    }
+    
+    private Author readAuthor() throws IOException, InvalidDataException {
+        int id = readCount();
+        if (id > 0) {
+            return reference(authors, id);
+        }
+        Author author = Author.of(readString(), readString(), (int) unzigzag(readVarLong()));
+        authors.add(author);
+        return author;
+    }
+    
+    private Reader readReader() throws IOException, InvalidDataException {
+        int id = readCount();
+        if (id > 0) {
+            return reference(readers, id);
+        }
+        Reader reader = Reader.of(readString(), readString(), readString());
+        readers.add(reader);
+        return reader;
+    }
+    
+    private Book readBook() throws IOException, InvalidDataException {
+        int id = readCount();
+        if (id > 0) {
+            return reference(books, id);
+        }
+        String title = readString();
+        int authorCount = readCount();
+        List<Author> bookAuthors = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+            bookAuthors.add(readAuthor());
+        }
+        Book book = Book.of(title, bookAuthors, readIsbn(), readEnum(BOOK_STATUSES));
+        books.add(book);
+        return book;
+    }
+    
+    private Loan readLoan() throws IOException, InvalidDataException {
+        return Loan.of(readBook(), readReader(), readDate(), readDate());
+    }
+    
+    private Membership readMembership() throws IOException, InvalidDataException {
+        return Membership.of(readReader(), readDate(), readDate(), readEnum(MEMBERSHIP_TYPES));
+    }
+    
+    private String readIsbn() throws IOException {
+        require(1);
+        byte tag = buffer.get();
+        switch (tag) {
+            case SnapshotWriter.ISBN_NULL:
+                return null;
+            case SnapshotWriter.ISBN_DIGITS:
+                require(1);
+                int length = buffer.get();
+                String digits = Long.toString(readVarLong());
+                if (length < digits.length() || length > SnapshotWriter.MAX_ISBN_DIGITS) {
+                    throw new IOException("Corrupt ISBN length " + length);
+                }
+                return "0".repeat(length - digits.length()) + digits;
+            case SnapshotWriter.ISBN_TEXT:
+                return readString();
+            default:
+                throw new IOException("Unknown ISBN encoding " + tag);
+        }
+    }
+    
+    private String readString() throws IOException {
+        long id = readVarLong();
+        if (id == 0) {
+            return null;
+        }
+        if (id > 1) {
+            return reference(strings, id - 1);
+        }
+        int length = readCount();
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) {
+                require(1);
+            }
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(value);
+        return value;
+    }
+    
+    private LocalDate readDate() throws IOException {
+        long value = readVarLong();
+        return value == 0 ? null : LocalDate.ofEpochDay(unzigzag(value - 1));
+    }
+    
+    private <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        require(1);
+        int ordinal = buffer.get() & 0xFF;
+        if (ordinal > values.length) {
+            throw new IOException("Unknown enum ordinal " + (ordinal - 1));
+        }
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+    
+    private int readCount() throws IOException {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt snapshot count " + value);
+        }
+        return (int) value;
+    }
+    
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+    
+    private static <T> T reference(List<T> table, long id) throws IOException {
+        if (id > table.size()) {
+            throw new IOException("Dangling snapshot reference " + id);
+        }
+        return table.get((int) id - 1);
+    }
+    
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                throw new IOException("Snapshot is truncated");
+            }
+        }
+        buffer.flip();
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
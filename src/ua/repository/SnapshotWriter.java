@@ -0,0 +1,245 @@
+package ua.repository;
+
+import ua.library.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+class SnapshotWriter {
+    
+    private static final Logger logger = Logger.getLogger(SnapshotWriter.class.getName());
+    
+    static final int MAGIC = 0x4C494253;
+    static final short VERSION = 1;
+    
+    static final byte END = 0;
+    static final byte AUTHORS = 1;
+    static final byte READERS = 2;
+    static final byte BOOKS = 3;
+    static final byte LOANS = 4;
+    static final byte MEMBERSHIPS = 5;
+    
+    static final byte ISBN_NULL = 0;
+    static final byte ISBN_DIGITS = 1;
+    static final byte ISBN_TEXT = 2;
+    
+    static final int MAX_ISBN_DIGITS = 18;
+    
+    private static final int ENTITY_BUFFER = 256;
+    
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> strings;
+    private final Map<Author, Integer> authors;
+    private final Map<Reader, Integer> readers;
+    private final Map<Book, Integer> books;
+    private long written;
+    
+    SnapshotWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 64));
+        this.strings = new HashMap<>();
+        this.authors = new IdentityHashMap<>();
+        this.readers = new IdentityHashMap<>();
+        this.books = new IdentityHashMap<>();
+    }
+    
+    long write(LibraryRepositories repositories) throws IOException {
+        ensure(6);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        
+        writeSection(AUTHORS, repositories.authors().snapshot(), this::writeAuthor);
+        writeSection(READERS, repositories.readers().snapshot(), this::writeReader);
+        writeSection(BOOKS, repositories.books().snapshot(), this::writeBook);
+        writeSection(LOANS, repositories.loans().snapshot(), this::writeLoan);
+        writeSection(MEMBERSHIPS, repositories.memberships().snapshot(), this::writeMembership);
+        
+        ensure(1);
+        buffer.put(END);
+        flush();
+        logger.log(Level.FINE, "Snapshot written: {0} bytes, {1} distinct strings", new Object[]{written, strings.size()});
+        return written;
+    }
+    
+    static byte[] encodeEntity(byte kind, Object item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter(Channels.newChannel(bytes), ENTITY_BUFFER);
+        switch (kind) {
+            case AUTHORS -> writer.writeAuthor((Author) item);
+            case READERS -> writer.writeReader((Reader) item);
+            case BOOKS -> writer.writeBook((Book) item);
+            case LOANS -> writer.writeLoan((Loan) item);
+            case MEMBERSHIPS -> writer.writeMembership((Membership) item);
+            default -> throw new IllegalArgumentException("Unknown snapshot section " + kind);
+        }
+        writer.flush();
+        return bytes.toByteArray();
+    }
+    
+    private interface Encoder<T> {
+        void encode(T item) throws IOException;
+    }
+    
+    private <T> void writeSection(byte tag, List<T> items, Encoder<T> encoder) throws IOException {
+        ensure(1);
+        buffer.put(tag);
+        writeVarLong(items.size());
+        for (T item : items) {
+            encoder.encode(item);
+        }
+    }
+    
+    private void writeAuthor(Author author) throws IOException {
+        Integer id = authors.get(author);
+        if (id != null) {
+            writeVarLong(id);
+            return;
+        }
+        authors.put(author, authors.size() + 1);
+        writeVarLong(0);
+        writeString(author.firstName());
+        writeString(author.lastName());
+        writeVarLong(zigzag(author.birthYear()));
+    }
+    
+    private void writeReader(Reader reader) throws IOException {
+        Integer id = readers.get(reader);
+        if (id != null) {
+            writeVarLong(id);
+            return;
+        }
+        readers.put(reader, readers.size() + 1);
+        writeVarLong(0);
+        writeString(reader.firstName());
+        writeString(reader.lastName());
+        writeString(reader.readerId());
+    }
+    
+    private void writeBook(Book book) throws IOException {
+        Integer id = books.get(book);
+        if (id != null) {
+            writeVarLong(id);
+            return;
+        }
+        books.put(book, books.size() + 1);
+        writeVarLong(0);
+        writeString(book.getTitle());
+        List<Author> bookAuthors = book.getAuthors();
+        writeVarLong(bookAuthors.size());
+        for (Author author : bookAuthors) {
+            writeAuthor(author);
+        }
+        writeIsbn(book.getIsbn());
+        writeEnum(book.getStatus());
+    }
+    
+    private void writeLoan(Loan loan) throws IOException {
+        writeBook(loan.getBook());
+        writeReader(loan.getReader());
+        writeDate(loan.getIssueDate());
+        writeDate(loan.getReturnDate());
+    }
+    
+    private void writeMembership(Membership membership) throws IOException {
+        writeReader(membership.getReader());
+        writeDate(membership.getStartDate());
+        writeDate(membership.getEndDate());
+        writeEnum(membership.getType());
+    }
+    
+    private void writeIsbn(String isbn) throws IOException {
+        ensure(2);
+        if (isbn == null) {
+            buffer.put(ISBN_NULL);
+        } else if (isDigits(isbn)) {
+            buffer.put(ISBN_DIGITS);
+            buffer.put((byte) isbn.length());
+            writeVarLong(Long.parseLong(isbn));
+        } else {
+            buffer.put(ISBN_TEXT);
+            writeString(isbn);
+        }
+    }
+    
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer id = strings.get(value);
+        if (id != null) {
+            writeVarLong(id + 1L);
+            return;
+        }
+        strings.put(value, strings.size() + 1);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(1);
+        writeVarLong(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+    
+    private void writeDate(LocalDate date) throws IOException {
+        writeVarLong(date == null ? 0 : zigzag(date.toEpochDay()) + 1);
+    }
+    
+    private void writeEnum(Enum<?> value) throws IOException {
+        ensure(1);
+        buffer.put((byte) (value == null ? 0 : value.ordinal() + 1));
+    }
+    
+    private void writeVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+    
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+    
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    static boolean isDigits(String isbn) {
+        if (isbn.isEmpty() || isbn.length() > MAX_ISBN_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class SortedIndex<T> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(SortedIndex.class.getName());
+    
+    private final String name;
+    private final Comparator<? super T> comparator;
+    private final NavigableSet<Slot<T>> entries;
+    
+    public SortedIndex(String name, Comparator<? super T> comparator, boolean concurrent) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Sorted view comparator cannot be null");
+        }
+        this.name = name;
+        this.comparator = comparator;
+        Comparator<Slot<T>> order = (left, right) -> {
+            int result = comparator.compare(left.item, right.item);
+            return result != 0 ? result : Long.compare(left.sequence, right.sequence);
+        };
+        this.entries = concurrent ? new ConcurrentSkipListSet<>(order) : new TreeSet<>(order);
+        
+        logger.log(Level.FINE, "SortedIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Comparator<? super T> getComparator() {
+        return comparator;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        entries.add(slot);
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        if (!entries.remove(slot)) {
+            logger.log(Level.WARNING, "Sorted view {0} has no entry for identity {1}: its sort key changed without a change notification", 
+                       new Object[]{name, slot.identity});
+        }
+    }
+    
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public List<T> list() {
+        List<T> result = new ArrayList<>(entries.size());
+        for (Slot<T> slot : entries) {
+            result.add(slot.item);
+        }
+        return result;
+    }
+    
+    public List<T> list(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Slot<T>> iterator = entries.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next().item);
+        }
+        return result;
+    }
+    
+    List<T> listAfter(Slot<T> cursor, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Slot<T>> iterator = entries.tailSet(cursor, false).iterator();
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next().item);
+        }
+        return result;
+    }
+    
+    Stream<T> stream() {
+        return entries.stream().map(slot -> slot.item);
+    }
+    
+    Iterator<T> iterator() {
+        Iterator<Slot<T>> slots = entries.iterator();
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return slots.hasNext();
+            }
+            
+            @Override
+            public T next() {
+                return slots.next().item;
+            }
+        };
+    }
+    
+    public Optional<T> first() {
+        Slot<T> slot = entries.isEmpty() ? null : entries.first();
+        return slot == null ? Optional.empty() : Optional.of(slot.item);
+    }
+    
+    @Override
+    public String toString() {
+        return "SortedIndex{name=" + name + ", size=" + entries.size() + "}";
+    }
+}
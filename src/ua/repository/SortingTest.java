@@ -3,6 +3,7 @@ package ua.repository;
 import ua.library.*;
 import ua.enums.*;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 
 public class SortingTest {
@@ -19,6 +20,8 @@ public class SortingTest {
         testLoanSorting();
         testMembershipSorting();
         testSortByIdentity();
+        testSortedViewMaintenance();
+        testTopKAndKeysetPaging();
         
         System.out.println("\n=== TEST RESULTS ===");
         System.out.println("Passed: " + testsPassed);
@@ -196,6 +199,79 @@ public class SortingTest {
         System.out.println("sortByIdentity tests passed\n");
     }
     
+    private static void testSortedViewMaintenance() {
+        System.out.println("--- Test: Sorted View Maintenance ---");
+        
+        BookRepository repo = new BookRepository();
+        Author author = Author.of("Test", "Author", 1980);
+        
+        Book zebra = Book.of("Zebra", author, "9999999999", BookStatus.AVAILABLE);
+        Book apple = Book.of("Apple", author, "1111111111", BookStatus.AVAILABLE);
+        Book twin = Book.of("apple", author, "2222222222", BookStatus.AVAILABLE);
+        repo.add(zebra);
+        repo.add(apple);
+        repo.add(twin);
+        
+        List<Book> sorted = repo.sortByTitle();
+        assertEquals("Apple", sorted.get(0).getTitle(), "Ties should keep insertion order");
+        assertEquals("apple", sorted.get(1).getTitle(), "Ties should keep insertion order");
+        assertEquals("Apple", repo.sortByTitleDescending().get(1).getTitle(), "Descending ties should keep insertion order");
+        
+        repo.remove(apple);
+        assertEquals("apple", repo.sortByTitle().get(0).getTitle(), "Removed book should leave the view");
+        
+        zebra.setTitle("Aardvark");
+        assertEquals("Aardvark", repo.sortByTitle().get(0).getTitle(), "Renamed book should move in the view");
+        zebra.setIsbn("0000000000");
+        assertEquals("0000000000", repo.sortByIsbn().get(0).getIsbn(), "Re-keyed book should move in the ISBN view");
+        
+        List<Book> page = repo.findSorted("byTitle", 1, 5);
+        assertEquals(1, page.size(), "Page should hold the remaining book");
+        assertEquals("apple", page.get(0).getTitle(), "Page should start after the offset");
+        
+        repo.clear();
+        assertEquals(0, repo.sortByTitle().size(), "Cleared repository should have an empty view");
+        
+        System.out.println("Sorted View Maintenance tests passed\n");
+    }
+    
+    private static void testTopKAndKeysetPaging() {
+        System.out.println("--- Test: Top-K and Keyset Paging ---");
+        
+        BookRepository repo = new BookRepository();
+        Author author = Author.of("Test", "Author", 1980);
+        String[] titles = {"Delta", "Alpha", "Echo", "Charlie", "Bravo", "alpha"};
+        for (int i = 0; i < titles.length; i++) {
+            repo.add(Book.of(titles[i], author, "100000000" + i, BookStatus.AVAILABLE));
+        }
+        
+        List<Book> top = repo.findTop(Comparator.naturalOrder(), 3);
+        assertEquals(3, top.size(), "Top-K should honour the limit");
+        assertEquals("Alpha", top.get(0).getTitle(), "Top-K should start with the smallest title");
+        assertEquals("alpha", top.get(1).getTitle(), "Top-K should keep insertion order for ties");
+        assertEquals("Bravo", top.get(2).getTitle(), "Top-K should be ordered");
+        
+        List<Book> next = repo.findAfter(Comparator.naturalOrder(), top.get(2), 2);
+        assertEquals("Charlie", next.get(0).getTitle(), "Keyset page should start after the cursor");
+        assertEquals("Delta", next.get(1).getTitle(), "Keyset page should be ordered");
+        
+        List<Book> afterTie = repo.findAfter(Comparator.naturalOrder(), top.get(0), 1);
+        assertEquals("alpha", afterTie.get(0).getTitle(), "Keyset paging should step through ties");
+        
+        Comparator<Book> byLength = Comparator.comparingInt(book -> book.getTitle().length());
+        List<Book> shortest = repo.findTop(byLength, 2);
+        assertEquals("Echo", shortest.get(0).getTitle(), "Heap selection should find the shortest title");
+        assertEquals("Delta", shortest.get(1).getTitle(), "Heap selection should break ties by insertion order");
+        List<Book> heapPage = repo.findAfter(byLength, shortest.get(1), 10);
+        assertEquals(4, heapPage.size(), "Heap paging should return the rest");
+        assertEquals("Alpha", heapPage.get(0).getTitle(), "Heap paging should continue after the cursor");
+        
+        List<Book> descending = repo.findTop(Book.byTitleDescending(), 1);
+        assertEquals("Echo", descending.get(0).getTitle(), "Static comparator factories should plug in directly");
+        
+        System.out.println("Top-K and Keyset Paging tests passed\n");
+    }
+    
     private static void assertTrue(boolean condition, String message) {
         if (condition) {
             testsPassed++;
@@ -3,9 +3,15 @@ package ua.repository;
 import ua.library.*;
 import ua.enums.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 public class StreamSearchTest {
     
@@ -21,6 +27,10 @@ public class StreamSearchTest {
         testLoanRepositorySearch();
         testMembershipRepositorySearch();
         testTerminalOperations();
+        testQueryPlanner();
+        testLazyStreams();
+        testPrefixSuggestions();
+        testConcurrentCounts();
         
         System.out.println("\n=== TEST RESULTS ===");
         System.out.println("Passed: " + testsPassed);
@@ -48,6 +58,8 @@ public class StreamSearchTest {
         repo.add(book2);
         repo.add(book3);
         
+        assertEquals(book2, repo.findByIdentity("222-222-2222"), "ISBN identity should ignore hyphens");
+        
         List<Book> found = repo.findByTitle("Test Book");
         assertEquals(1, found.size(), "Should find one book by exact title");
         assertEquals("Test Book", found.get(0).getTitle(), "Found book should be Test Book");
@@ -55,6 +67,17 @@ public class StreamSearchTest {
         List<Book> foundContains = repo.findByTitleContains("Test");
         assertEquals(2, foundContains.size(), "Should find 2 books containing 'Test'");
         
+        assertEquals(1, repo.findByTitleContains("ST BO").size(), "Substring search should span word boundaries");
+        assertEquals(3, repo.findByTitleContains("o").size(), "Short fragments should still match");
+        assertEquals(0, repo.findByTitleContains("zzz").size(), "Unknown fragment should match nothing");
+        assertEquals(2, repo.findByTitleContains("NO").size(), "Two-character fragments should still match");
+        assertEquals(1L, repo.countByTitleContains("v"), "Single-character counts should still match");
+        assertEquals(3, repo.findByAuthorName("test auth").size(), "Should find books by author name fragment");
+        
+        List<Book> ranked = repo.searchByTitle("test book", 2);
+        assertEquals(2, ranked.size(), "Ranked search should honour the limit");
+        assertEquals(book1, ranked.get(0), "Exact title should rank first");
+        
         List<Book> foundStatus = repo.findByStatus(BookStatus.AVAILABLE);
         assertEquals(2, foundStatus.size(), "Should find 2 books with AVAILABLE status");
         
@@ -67,6 +90,56 @@ public class StreamSearchTest {
         
         Map<BookStatus, Long> countByStatus = repo.countByStatus();
         assertEquals(2L, countByStatus.get(BookStatus.AVAILABLE), "Should have 2 AVAILABLE books");
+        repo.remove(book1);
+        assertEquals(Long.valueOf(1L), repo.countByStatus().get(BookStatus.AVAILABLE), "Status counts should follow removals");
+        assertEquals(2L, countByStatus.get(BookStatus.AVAILABLE), "Earlier count snapshot should not change");
+        repo.add(book1);
+        repo.remove(book3);
+        assertEquals(1, repo.findByTitleContains("no").size(), "Short fragments should follow removals");
+        repo.add(book3);
+        assertEquals(2, repo.findByTitleContains("no").size(), "Short fragments should follow re-insertion");
+        
+        BookRepository churn = new BookRepository();
+        List<Book> shelf = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String title = "Volume " + i + (i % 3 == 0 ? " Atlas" : " Novel");
+            Book book = Book.of(title, author, String.valueOf(1000000000L + i), BookStatus.AVAILABLE);
+            shelf.add(book);
+            churn.add(book);
+        }
+        for (int i = 0; i < 300; i += 2) {
+            churn.remove(shelf.get(i));
+        }
+        assertEquals(50, churn.findByTitleContains("atlas").size(), "Trigram postings should drop removed books");
+        assertEquals(100, churn.findByTitleContains("novel").size(), "Compacted postings should keep live books");
+        shelf.get(3).setTitle("Volume 3 Novel");
+        assertEquals(49, churn.findByTitleContains("atlas").size(), "Trigram postings should follow title changes");
+        assertEquals(101, churn.searchByTitle("novel", 500).size(), "Token postings should follow title changes");
+        assertEquals(List.of(shelf.get(1), shelf.get(3), shelf.get(5)), churn.findByTitleContains("novel").subList(0, 3), 
+                     "Re-indexed books should keep repository order");
+        
+        TextIndex<String> postings = new TextIndex<>("postings", text -> text, false);
+        List<Slot<String>> slots = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Slot<String> slot = new Slot<>(i, "atlas " + i, i, i);
+            slots.add(slot);
+            postings.add(slot);
+        }
+        for (int i = 0; i < 40; i++) {
+            postings.remove(slots.get(i));
+            postings.remove(slots.get(i));
+        }
+        assertEquals(60L, postings.estimateContaining("atlas"), "Repeated removals should be counted once");
+        for (int i = 0; i < 10; i++) {
+            postings.add(slots.get(i));
+            postings.add(slots.get(i));
+        }
+        assertEquals(70L, postings.estimateContaining("atlas"), "Re-added sequences should be revived once");
+        for (int i = 0; i < 60; i++) {
+            postings.remove(slots.get(i));
+        }
+        assertEquals(40L, postings.estimateContaining("atlas"), "Compaction should keep exactly the live sequences");
+        assertEquals(40, postings.findContaining("atlas").size(), "Compacted postings should still match live documents");
         
         System.out.println("BookRepository Search tests passed\n");
     }
@@ -154,14 +227,46 @@ public class StreamSearchTest {
         repo.add(loan2);
         repo.add(loan3);
         
+        assertEquals(loan3, repo.findLoan(book1, reader1, date2), "Should find loan by book, reader and issue date");
+        assertTrue(repo.findLoan(book2, reader1, date2) == null, "Should not find loan for other book");
+        assertEquals(loan2, repo.findByIdentity(LoanKey.of(loan2)), "Should find loan by structured key");
+        
         List<Loan> foundByReader = repo.findByReader(reader1);
         assertEquals(2, foundByReader.size(), "Should find 2 loans for reader1");
         
         List<Loan> foundByBook = repo.findByBook(book1);
         assertEquals(2, foundByBook.size(), "Should find 2 loans for book1");
         
+        assertEquals(1, repo.findByIssueDateRange(date1.minusDays(1), date1.plusDays(1)).size(),
+                     "Should find 1 loan issued around date1");
+        assertEquals(3, repo.findByIssueDateRange(date1, date2).size(), "Range bounds should be inclusive");
+        assertEquals(0, repo.findByIssueDateRange(date2, date1).size(), "Inverted range should be empty");
+        assertEquals(2, repo.findByReturnDateRange(date2.plusDays(14), date2.plusDays(21)).size(),
+                     "Should find 2 loans due in the later window");
+        
+        assertEquals(1, repo.findOverdue().size(), "Should find 1 overdue loan");
+        assertEquals(1L, repo.countOverdue(), "Should count 1 overdue loan");
+        repo.remove(loan1);
+        assertEquals(0L, repo.countOverdue(), "Overdue count should follow removals");
+        repo.add(loan1);
+        assertEquals(1L, repo.countOverdue(), "Overdue count should follow additions");
+        
         Map<Reader, Long> countByReader = repo.countByReader();
         assertEquals(2L, countByReader.get(reader1), "Reader1 should have 2 loans");
+        repo.remove(loan1);
+        assertEquals(Long.valueOf(1L), repo.countByReader().get(reader1), "Reader counts should follow removals");
+        assertEquals(Long.valueOf(2L), countByReader.get(reader1), "Earlier reader counts should not change");
+        repo.add(loan1);
+        assertEquals(Long.valueOf(2L), repo.countByReader().get(reader1), "Reader counts should follow additions");
+        assertTrue(repo.countByReader() == repo.countByReader(), "Reader counts should be reused until the next change");
+        assertTrue(!countByReader.containsKey(null), "Reader counts should not contain null");
+        boolean frozen = false;
+        try {
+            countByReader.clear();
+        } catch (UnsupportedOperationException e) {
+            frozen = true;
+        }
+        assertTrue(frozen, "Reader counts should be read-only");
         
         Optional<Loan> oldest = repo.findOldestLoan();
         assertTrue(oldest.isPresent(), "Should find oldest loan");
@@ -185,14 +290,47 @@ public class StreamSearchTest {
         repo.add(membership1);
         repo.add(membership2);
         
+        assertEquals(membership2, repo.findMembership(reader2, start1), "Should find membership by reader and start date");
+        
         List<Membership> foundByType = repo.findByType(MembershipType.PREMIUM);
         assertEquals(1, foundByType.size(), "Should find 1 PREMIUM membership");
         
         List<Membership> active = repo.findActive();
         assertTrue(active.size() >= 1, "Should find at least 1 active membership");
         
+        Membership expired = Membership.of(reader1, start1.minusYears(2), start1.minusYears(1), MembershipType.STUDENT);
+        repo.add(expired);
+        assertEquals(1, repo.findExpired().size(), "Should find 1 expired membership");
+        assertEquals(2L, repo.countActive(), "Expired membership should not count as active");
+        assertEquals(1, repo.findActiveOn(start1.minusYears(1)).size(), "Should find membership active on a past date");
+        repo.remove(expired);
+        
+        MembershipRepository history = new MembershipRepository();
+        LocalDate origin = LocalDate.of(2020, 1, 1);
+        List<Membership> periods = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            LocalDate start = origin.plusDays((i * 37L) % 700);
+            Membership period = Membership.of(Reader.of("Reader", "Number", String.format("RD%05d", i)), 
+                                              start, start.plusDays(1 + (i * 53L) % 300), MembershipType.STANDARD);
+            periods.add(period);
+            history.add(period);
+        }
+        periods.get(0).setEndDate(origin.plusDays(900));
+        history.remove(periods.get(1));
+        periods.remove(1);
+        boolean consistent = true;
+        for (int day = 0; day < 1000; day += 7) {
+            LocalDate date = origin.plusDays(day);
+            long expected = periods.stream()
+                    .filter(period -> !period.getStartDate().isAfter(date) && !period.getEndDate().isBefore(date))
+                    .count();
+            consistent &= history.findActiveOn(date).size() == expected;
+        }
+        assertTrue(consistent, "Interval index should match a full scan on every day");
+        
         Map<MembershipType, Long> countByType = repo.countByType();
         assertEquals(1L, countByType.get(MembershipType.PREMIUM), "Should have 1 PREMIUM membership");
+        assertTrue(!countByType.containsKey(MembershipType.STUDENT), "Removed type should drop out of the counts");
         
         System.out.println("MembershipRepository Search tests passed\n");
     }
@@ -224,6 +362,185 @@ public class StreamSearchTest {
         System.out.println("Terminal Operations tests passed\n");
     }
     
+    private static void testQueryPlanner() {
+        System.out.println("--- Test: Query Planner ---");
+        
+        BookRepository repo = new BookRepository();
+        Author tolkien = Author.of("John", "Tolkien", 1892);
+        Author lewis = Author.of("Clive", "Lewis", 1898);
+        Book hobbit = Book.of("The Hobbit", tolkien, "1111111111", BookStatus.AVAILABLE);
+        Book rings = Book.of("The Lord of the Rings", tolkien, "2222222222", BookStatus.CHECKED_OUT);
+        Book silmarillion = Book.of("The Silmarillion", tolkien, "3333333333", BookStatus.AVAILABLE);
+        Book narnia = Book.of("The Chronicles of Narnia", lewis, "4444444444", BookStatus.AVAILABLE);
+        repo.add(hobbit);
+        repo.add(rings);
+        repo.add(silmarillion);
+        repo.add(narnia);
+        
+        Query<Book> query = repo.query()
+                .where("status", BookStatus.AVAILABLE)
+                .whereContains("authorText", "tolkien")
+                .whereContains("titleText", "silm");
+        assertEquals(List.of(silmarillion), query.list(), "Combined criteria should match one book");
+        assertTrue(query.explain().startsWith("INDEX LOOKUP titleText"), "Planner should pick the most selective index");
+        assertTrue(query.explain().contains("FILTER status = AVAILABLE"), "Remaining criteria should become filters");
+        
+        List<String> titles = repo.query()
+                .where("status", BookStatus.AVAILABLE)
+                .filter(book -> book.getAuthors().contains(tolkien))
+                .orderBy(Book.byTitleDescending())
+                .limit(1)
+                .select(Book::getTitle);
+        assertEquals(List.of("The Silmarillion"), titles, "Ordering, limit and projection should combine");
+        
+        Query<Book> ordered = repo.query().orderBy(Comparator.naturalOrder()).limit(2);
+        assertTrue(ordered.explain().startsWith("SORTED VIEW SCAN"), "Unfiltered ordered query should walk a sorted view");
+        assertEquals(List.of(narnia, hobbit), ordered.list(), "Sorted view scan should stop at the limit");
+        
+        assertEquals(3L, repo.query().where("status", BookStatus.AVAILABLE).count(), "Count should use the plan");
+        assertTrue(repo.query().filter(book -> true).explain().startsWith("FULL SCAN"), "Predicates alone need a full scan");
+        assertEquals(Optional.of(hobbit), repo.query().whereContains("authorText", "tolkien").first(), "First should keep repository order");
+        
+        int[] tested = {0};
+        List<Book> firstTwo = repo.query().filter(book -> ++tested[0] > 0).limit(2).list();
+        assertEquals(List.of(hobbit, rings), firstTwo, "Unordered limit should keep repository order");
+        assertEquals(2, tested[0], "Unordered limit should stop scanning once enough matches are found");
+        tested[0] = 0;
+        assertEquals(1L, repo.query().filter(book -> ++tested[0] > 0).limit(1).count(), "Count should honour the limit");
+        assertEquals(1, tested[0], "Limited count should stop scanning at the limit");
+        
+        System.out.println("Query Planner tests passed\n");
+    }
+    
+    private static void testLazyStreams() {
+        System.out.println("--- Test: Lazy Streams ---");
+        
+        GenericRepository<Integer> repo = new GenericRepository<>(value -> value);
+        for (int i = 0; i < 3000; i++) {
+            repo.add(i);
+        }
+        
+        Spliterator<Integer> full = repo.snapshot().spliterator();
+        assertTrue(full.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED),
+                   "Hole-free storage should be SIZED, SUBSIZED and ORDERED");
+        assertEquals(3000L, full.getExactSizeIfKnown(), "Exact size should be reported");
+        
+        repo.remove(5);
+        Spliterator<Integer> holey = repo.snapshot().spliterator();
+        assertEquals(2999L, holey.getExactSizeIfKnown(), "Exact size should skip holes");
+        assertTrue(!holey.hasCharacteristics(Spliterator.SUBSIZED), "Holes should drop SUBSIZED");
+        Spliterator<Integer> prefix = holey.trySplit();
+        assertTrue(prefix != null && !prefix.hasCharacteristics(Spliterator.SIZED), "Split halves with holes are not sized");
+        
+        AtomicInteger visited = new AtomicInteger();
+        Optional<Integer> firstLarge = repo.stream().peek(value -> visited.incrementAndGet()).filter(value -> value > 10).findFirst();
+        assertEquals(Optional.of(11), firstLarge, "findFirst should return the first match");
+        assertEquals(11, visited.get(), "findFirst should short-circuit");
+        assertEquals(List.of(0, 1, 2), repo.stream().limit(3).toList(), "limit should keep repository order");
+        assertEquals(2999L, repo.stream().count(), "Stream count should match live items");
+        
+        Iterator<Integer> iterator = repo.iterator();
+        assertEquals(0, iterator.next().intValue(), "Iterator should start at the first item");
+        
+        LoanRepository loans = new LoanRepository();
+        Author author = Author.of("Test", "Author", 1970);
+        Reader reader = Reader.of("Reader", "One", "RD11111");
+        Book book = Book.of("Book", author, "1111111111", BookStatus.CHECKED_OUT);
+        LocalDate issued = LocalDate.now().minusDays(30);
+        loans.add(Loan.of(book, reader, issued, issued.plusDays(7)));
+        loans.add(Loan.of(book, reader, issued.plusDays(1), LocalDate.now().plusDays(7)));
+        assertEquals(loans.findOverdue(), loans.streamOverdue().toList(), "Overdue stream should match the list");
+        assertEquals(2L, loans.streamByReader(reader).count(), "Reader stream should use the index");
+        
+        BookRepository books = new BookRepository();
+        for (int i = 0; i < 100; i++) {
+            books.add(Book.of("Book " + i, author, String.valueOf(2000000000L + i),
+                              i % 2 == 0 ? BookStatus.AVAILABLE : BookStatus.LOST));
+        }
+        Stream<Book> lost = books.streamByStatus(BookStatus.LOST);
+        books.remove(books.findFirstByStatus(BookStatus.LOST).orElseThrow());
+        assertEquals(50L, lost.count(), "Status stream should read the snapshot it was opened on");
+        AtomicInteger resolved = new AtomicInteger();
+        Optional<Book> firstAvailable = books.streamByStatus(BookStatus.AVAILABLE)
+                .peek(found -> resolved.incrementAndGet())
+                .findFirst();
+        assertEquals("Book 0", firstAvailable.map(Book::getTitle).orElse(null), "Status stream should keep storage order");
+        assertEquals(1, resolved.get(), "Status stream should resolve positions lazily");
+        assertEquals(49L, books.streamByStatus(BookStatus.LOST).count(), "Status stream should skip removed books");
+        
+        System.out.println("Lazy Streams tests passed\n");
+    }
+    
+    private static void testConcurrentCounts() {
+        System.out.println("--- Test: Concurrent Counts ---");
+        
+        CountingIndex<String, String> index = CountingIndex.forKeys("shared", item -> "key");
+        AtomicInteger lost = new AtomicInteger();
+        Thread[] workers = new Thread[2];
+        for (int t = 0; t < workers.length; t++) {
+            String identity = "item" + t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 500_000; i++) {
+                    Slot<String> slot = new Slot<>(identity, identity, 0, i);
+                    index.add(slot);
+                    if (index.count("key") < 1) {
+                        lost.incrementAndGet();
+                    }
+                    index.remove(slot);
+                }
+            });
+            workers[t].start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertEquals(0, lost.get(), "Concurrent updates of one key should never lose an increment");
+        assertEquals(0L, index.count("key"), "Counts should return to zero after balanced updates");
+        assertTrue(index.snapshot().isEmpty(), "Zero counts should be dropped from the map");
+        
+        System.out.println("Concurrent Counts tests passed\n");
+    }
+    
+    private static void testPrefixSuggestions() {
+        System.out.println("--- Test: Prefix Suggestions ---");
+        
+        Author tolkien = Author.of("John", "Tolkien", 1892);
+        BookRepository books = new BookRepository();
+        Book hobbit = Book.of("The Hobbit", tolkien, "1111111111", BookStatus.AVAILABLE);
+        books.add(hobbit);
+        books.add(Book.of("The Two Towers", tolkien, "2222222222", BookStatus.AVAILABLE));
+        books.add(Book.of("the two towers", tolkien, "3333333333", BookStatus.AVAILABLE));
+        books.add(Book.of("Silmarillion", tolkien, "4444444444", BookStatus.AVAILABLE));
+        
+        assertEquals(List.of("The Hobbit", "The Two Towers"), books.suggestTitles("the", 5), 
+                    "Suggestions should be case-insensitive, distinct and ordered");
+        assertEquals(List.of("The Hobbit"), books.suggestTitles("THE", 1), "Suggestions should respect the limit");
+        assertEquals(2, books.findByTitlePrefix("the t", 10).size(), "Prefix lookup should return every matching book");
+        assertTrue(books.suggestTitles("x", 5).isEmpty(), "Unknown prefixes should have no suggestions");
+        
+        hobbit.setTitle("There and Back Again");
+        assertEquals(List.of("There and Back Again"), books.suggestTitles("there", 5), "Title changes should be re-indexed");
+        assertTrue(books.findByTitlePrefix("the hob", 5).isEmpty(), "Old titles should be dropped");
+        
+        ReaderRepository readers = new ReaderRepository();
+        readers.add(Reader.of("Alice", "Smith", "RD11111"));
+        readers.add(Reader.of("Alan", "Smithers", "RD22222"));
+        assertEquals(List.of("Alan Smithers", "Alice Smith"), readers.suggestNames("al", 5), "Readers should complete by first name");
+        assertEquals(List.of("Smith Alice", "Smithers Alan"), readers.suggestNames("smith", 5), "Readers should complete by last name");
+        
+        AuthorRepository authors = new AuthorRepository();
+        authors.add(tolkien);
+        authors.add(Author.of("Christopher", "Tolkien", 1924));
+        assertEquals(2, authors.findByNamePrefix("tolk", 5).size(), "Authors should be found by last name prefix");
+        assertEquals(List.of("John Tolkien"), authors.suggestNames("jo", 5), "Authors should complete by first name");
+        
+        System.out.println("Prefix Suggestions tests passed\n");
+    }
+    
     private static void assertTrue(boolean condition, String message) {
         if (condition) {
             testsPassed++;
@@ -0,0 +1,420 @@
+package ua.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongConsumer;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+public class TextIndex<T> implements RepositoryIndex<T> {
+    
+    private static final Logger logger = Logger.getLogger(TextIndex.class.getName());
+    
+    private static final int GRAM = 3;
+    
+    private final String name;
+    private final IndexKeyExtractor<T> textExtractor;
+    private final boolean concurrent;
+    private final NavigableMap<Long, Document<T>> documents;
+    private final Map<String, Postings> tokens;
+    private final Map<String, Postings> grams;
+    
+    private record Document<T>(T item, String text) {}
+    
+    private record Match<T>(T item, long sequence, int score, int length) {}
+    
+    public TextIndex(String name, IndexKeyExtractor<T> textExtractor, boolean concurrent) {
+        if (textExtractor == null) {
+            throw new IllegalArgumentException("Text extractor cannot be null");
+        }
+        this.name = name;
+        this.textExtractor = textExtractor;
+        this.concurrent = concurrent;
+        this.documents = concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+        this.tokens = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.grams = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        
+        logger.log(Level.FINE, "TextIndex {0} initialized", name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void add(Slot<T> slot) {
+        String text = normalize(textExtractor.extractKey(slot.item));
+        if (text == null) {
+            return;
+        }
+        synchronized (documents) {
+            documents.put(slot.sequence, new Document<>(slot.item, text));
+            for (String token : tokenize(text)) {
+                tokens.computeIfAbsent(token, k -> newPostings()).add(slot.sequence);
+            }
+            for (String gram : grams(text)) {
+                grams.computeIfAbsent(gram, k -> newPostings()).add(slot.sequence);
+            }
+        }
+    }
+    
+    @Override
+    public void remove(Slot<T> slot) {
+        synchronized (documents) {
+            Document<T> document = documents.remove(slot.sequence);
+            if (document == null) {
+                return;
+            }
+            for (String token : tokenize(document.text())) {
+                removePosting(tokens, token, slot.sequence);
+            }
+            for (String gram : grams(document.text())) {
+                removePosting(grams, gram, slot.sequence);
+            }
+        }
+    }
+    
+    @Override
+    public void clear() {
+        synchronized (documents) {
+            documents.clear();
+            tokens.clear();
+            grams.clear();
+        }
+    }
+    
+    public List<T> findContaining(String fragment) {
+        List<T> result = new ArrayList<>();
+        forEachContaining(fragment, (sequence, document) -> result.add(document.item()));
+        return result;
+    }
+    
+    public long countContaining(String fragment) {
+        long[] count = {0};
+        forEachContaining(fragment, (sequence, document) -> count[0]++);
+        return count[0];
+    }
+    
+    long estimateContaining(String fragment) {
+        String normalized = normalize(fragment);
+        if (normalized == null) {
+            return 0;
+        }
+        if (normalized.length() < GRAM) {
+            return documents.size();
+        }
+        long smallest = documents.size();
+        for (String gram : queryGrams(normalized)) {
+            Postings posting = grams.get(gram);
+            if (posting == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, posting.size());
+        }
+        return smallest;
+    }
+    
+    boolean matches(T item, String fragment) {
+        String text = normalize(textExtractor.extractKey(item));
+        String normalized = normalize(fragment);
+        return text != null && normalized != null && text.contains(normalized);
+    }
+    
+    public List<T> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized == null || normalized.isBlank() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        
+        Set<String> queryTokens = tokenize(normalized);
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String token : queryTokens) {
+            Postings postings = tokens.get(token);
+            if (postings != null) {
+                postings.view().forEach(sequence -> {
+                    if (hasToken(sequence, token)) {
+                        scores.merge(sequence, 2, Integer::sum);
+                    }
+                });
+            }
+        }
+        forEachContaining(normalized, (sequence, document) -> {
+            int bonus = document.text().equals(normalized) ? 10 : document.text().startsWith(normalized) ? 4 : 1;
+            scores.merge(sequence, bonus, Integer::sum);
+        });
+        
+        Comparator<Match<T>> ranking = Comparator
+                .comparingInt((Match<T> match) -> match.score()).reversed()
+                .thenComparingInt(Match::length)
+                .thenComparingLong(Match::sequence);
+        PriorityQueue<Match<T>> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            Document<T> document = documents.get(entry.getKey());
+            if (document == null) {
+                continue;
+            }
+            top.add(new Match<>(document.item(), entry.getKey(), entry.getValue(), document.text().length()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        
+        List<Match<T>> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        List<T> result = new ArrayList<>(ranked.size());
+        for (Match<T> match : ranked) {
+            result.add(match.item());
+        }
+        logger.log(Level.FINE, "TextIndex {0} ranked {1} of {2} candidates", 
+                   new Object[]{name, result.size(), scores.size()});
+        return result;
+    }
+    
+    private void forEachContaining(String fragment, DocumentVisitor<T> visitor) {
+        String normalized = normalize(fragment);
+        if (normalized == null) {
+            return;
+        }
+        
+        if (normalized.length() < GRAM) {
+            for (Map.Entry<Long, Document<T>> entry : documents.entrySet()) {
+                if (entry.getValue().text().contains(normalized)) {
+                    visitor.visit(entry.getKey(), entry.getValue());
+                }
+            }
+            return;
+        }
+        
+        List<Postings> candidates = new ArrayList<>();
+        for (String gram : queryGrams(normalized)) {
+            Postings posting = grams.get(gram);
+            if (posting == null) {
+                return;
+            }
+            candidates.add(posting);
+        }
+        candidates.sort(Comparator.comparingInt(Postings::size));
+        List<Postings.View> postings = new ArrayList<>(candidates.size());
+        for (Postings posting : candidates) {
+            postings.add(posting.view());
+        }
+        
+        postings.get(0).forEach(sequence -> {
+            for (int i = 1; i < postings.size(); i++) {
+                if (!postings.get(i).contains(sequence)) {
+                    return;
+                }
+            }
+            Document<T> document = documents.get(sequence);
+            if (document != null && document.text().contains(normalized)) {
+                visitor.visit(sequence, document);
+            }
+        });
+    }
+    
+    private boolean hasToken(long sequence, String token) {
+        Document<T> document = documents.get(sequence);
+        if (document == null) {
+            return false;
+        }
+        String text = document.text();
+        for (int at = text.indexOf(token); at >= 0; at = text.indexOf(token, at + 1)) {
+            int end = at + token.length();
+            if ((at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1)))
+                    && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void removePosting(Map<String, Postings> postings, String key, long sequence) {
+        Postings posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(sequence);
+            if (posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+    
+    private Postings newPostings() {
+        return new Postings();
+    }
+    
+    private static String normalize(Object text) {
+        return text == null ? null : text.toString().toLowerCase(Locale.ROOT);
+    }
+    
+    private static Set<String> tokenize(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+    
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM));
+        }
+        return result;
+    }
+    
+    private static Set<String> queryGrams(String fragment) {
+        return grams(fragment);
+    }
+    
+    private static final class Postings {
+        
+        private static final long[] EMPTY = new long[0];
+        private static final int MIN_TAIL = 16;
+        
+        private record View(long[] values, int size, long[] tail) {
+            
+            boolean contains(long sequence) {
+                return Arrays.binarySearch(values, 0, size, sequence) >= 0 || Arrays.binarySearch(tail, sequence) >= 0;
+            }
+            
+            void forEach(LongConsumer action) {
+                int i = 0;
+                int j = 0;
+                while (i < size || j < tail.length) {
+                    if (j == tail.length || (i < size && values[i] < tail[j])) {
+                        action.accept(values[i++]);
+                    } else {
+                        action.accept(tail[j++]);
+                    }
+                }
+            }
+        }
+        
+        private volatile View view;
+        private volatile int stale;
+        private BitSet removed;
+        
+        Postings() {
+            this.view = new View(new long[4], 0, EMPTY);
+        }
+        
+        View view() {
+            return view;
+        }
+        
+        boolean isEmpty() {
+            return size() <= 0;
+        }
+        
+        int size() {
+            View current = view;
+            return current.size() + current.tail().length - stale;
+        }
+        
+        void add(long sequence) {
+            View current = view;
+            long[] values = current.values();
+            int size = current.size();
+            if (size == 0 || values[size - 1] < sequence) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size] = sequence;
+                view = new View(values, size + 1, current.tail());
+                return;
+            }
+            int position = Arrays.binarySearch(values, 0, size, sequence);
+            if (position >= 0) {
+                if (removed != null && removed.get(position)) {
+                    removed.clear(position);
+                    stale--;
+                }
+                return;
+            }
+            long[] tail = current.tail();
+            int insertion = Arrays.binarySearch(tail, sequence);
+            if (insertion >= 0) {
+                return;
+            }
+            insertion = -insertion - 1;
+            long[] grown = new long[tail.length + 1];
+            System.arraycopy(tail, 0, grown, 0, insertion);
+            grown[insertion] = sequence;
+            System.arraycopy(tail, insertion, grown, insertion + 1, tail.length - insertion);
+            if (grown.length > Math.max(MIN_TAIL, size >> 4)) {
+                compact(values, size, grown);
+            } else {
+                view = new View(values, size, grown);
+            }
+        }
+        
+        void remove(long sequence) {
+            View current = view;
+            int position = Arrays.binarySearch(current.values(), 0, current.size(), sequence);
+            if (position < 0) {
+                removeFromTail(current, sequence);
+                return;
+            }
+            if (removed == null) {
+                removed = new BitSet(current.size());
+            } else if (removed.get(position)) {
+                return;
+            }
+            removed.set(position);
+            stale++;
+            if (stale * 2 > current.size() + current.tail().length) {
+                compact(current.values(), current.size(), current.tail());
+            }
+        }
+        
+        private void removeFromTail(View current, long sequence) {
+            long[] tail = current.tail();
+            int position = Arrays.binarySearch(tail, sequence);
+            if (position < 0) {
+                return;
+            }
+            long[] shrunk = tail.length == 1 ? EMPTY : new long[tail.length - 1];
+            System.arraycopy(tail, 0, shrunk, 0, position);
+            System.arraycopy(tail, position + 1, shrunk, position, tail.length - position - 1);
+            view = new View(current.values(), current.size(), shrunk);
+        }
+        
+        private void compact(long[] values, int size, long[] tail) {
+            long[] result = new long[Math.max(4, size - stale + tail.length)];
+            int kept = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < tail.length) {
+                if (j == tail.length || (i < size && values[i] < tail[j])) {
+                    if (removed == null || !removed.get(i)) {
+                        result[kept++] = values[i];
+                    }
+                    i++;
+                } else {
+                    result[kept++] = tail[j++];
+                }
+            }
+            removed = null;
+            stale = 0;
+            view = new View(result, kept, EMPTY);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface DocumentVisitor<T> {
+        void visit(long sequence, Document<T> document);
+    }
+    
+    @Override
+    public String toString() {
+        return "TextIndex{name=" + name + ", documents=" + documents.size() + "}";
+    }
+}
@@ -51,6 +51,11 @@ public class ConfigLoader {
         }
     }
     
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+    
     public static String getJsonPath(String entity) {
         return getProperty("json." + entity + ".path", "data/" + entity + ".json");
     }
@@ -1,13 +1,34 @@
 package ua.util;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -16,6 +37,8 @@ public class DataSerializer {
     private static final Logger logger = Logger.getLogger(DataSerializer.class.getName());
     private static final ObjectMapper jsonMapper;
     private static final ObjectMapper yamlMapper;
+    private static final ObjectWriter streamWriter;
+    private static final int WRITE_BUFFER = ConfigLoader.getIntProperty("json.write.buffer", 1 << 18);
     
     static {
         jsonMapper = new ObjectMapper();
@@ -23,21 +46,58 @@ public class DataSerializer {
         
         yamlMapper = new ObjectMapper(new YAMLFactory());
         yamlMapper.registerModule(new JavaTimeModule());
+        
+        streamWriter = jsonMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
     
     public static <T> void saveToJson(List<T> data, String filePath, Class<T> type) throws DataSerializationException {
+        streamToJson(data.iterator(), filePath);
+    }
+    
+    public static <T> void saveToJson(List<T> data, String filePath, Class<T> type, boolean pretty) 
+            throws DataSerializationException {
+        streamToJson(data.iterator(), filePath, pretty);
+    }
+    
+    public static <T> long streamToJson(Iterator<? extends T> items, String filePath) throws DataSerializationException {
+        return streamToJson(items, filePath, ConfigLoader.getBooleanProperty("json.pretty", false));
+    }
+    
+    public static <T> long streamToJson(Iterator<? extends T> items, String filePath, boolean pretty) 
+            throws DataSerializationException {
+        Path path = Path.of(filePath);
+        long bytes;
+        int count = 0;
+        
         try {
-            File file = new File(filePath);
-            file.getParentFile().mkdirs();
-            
-            jsonMapper.writerWithDefaultPrettyPrinter().writeValue(file, data);
-            logger.log(Level.INFO, "Successfully saved {0} items to JSON file: {1}", 
-                      new Object[]{data.size(), filePath});
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER);
+                 JsonGenerator generator = jsonMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                if (pretty) {
+                    generator.useDefaultPrettyPrinter();
+                }
+                generator.writeStartArray();
+                while (items.hasNext()) {
+                    streamWriter.writeValue(generator, items.next());
+                    count++;
+                }
+                generator.writeEndArray();
+                generator.flush();
+                bytes = channel.position();
+            }
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error saving to JSON file {0}: {1}", 
                       new Object[]{filePath, e.getMessage()});
             throw new DataSerializationException("Failed to save data to JSON: " + filePath, e);
         }
+        
+        logger.log(Level.INFO, "Successfully saved {0} items ({1} bytes) to JSON file: {2}", 
+                  new Object[]{count, bytes, filePath});
+        return bytes;
     }
     
     public static <T> List<T> loadFromJson(String filePath, Class<T> type) throws DataSerializationException {
@@ -62,6 +122,65 @@ public class DataSerializer {
         }
     }
     
+    public static <T> int streamFromJson(String filePath, Class<T> type, ToIntFunction<Stream<T>> sink) 
+            throws DataSerializationException {
+        return stream(jsonMapper, "JSON", filePath, type, sink);
+    }
+    
+    public static <T> int streamFromYaml(String filePath, Class<T> type, ToIntFunction<Stream<T>> sink) 
+            throws DataSerializationException {
+        return stream(yamlMapper, "YAML", filePath, type, sink);
+    }
+    
+    private static <T> int stream(ObjectMapper mapper, String format, String filePath, Class<T> type, 
+                                  ToIntFunction<Stream<T>> sink) throws DataSerializationException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            logger.log(Level.WARNING, "{0} file not found: {1}", new Object[]{format, filePath});
+            throw new DataSerializationException("File not found: " + filePath);
+        }
+        
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new DataSerializationException("Expected a " + format + " array in " + filePath);
+            }
+            int count;
+            try (Stream<T> items = elements(mapper, parser, type)) {
+                count = sink.applyAsInt(items);
+            }
+            logger.log(Level.INFO, "Successfully streamed {0} items from {1} file: {2}", 
+                      new Object[]{count, format, filePath});
+            return count;
+        } catch (IOException | UncheckedIOException e) {
+            logger.log(Level.SEVERE, "Error streaming from {0} file {1}: {2}", 
+                      new Object[]{format, filePath, e.getMessage()});
+            throw new DataSerializationException("Failed to stream data from " + format + ": " + filePath, e);
+        }
+    }
+    
+    private static <T> Stream<T> elements(ObjectMapper mapper, JsonParser parser, Class<T> type) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, 
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    JsonToken token;
+                    while ((token = parser.nextToken()) == JsonToken.VALUE_NULL) {
+                        logger.log(Level.FINE, "Skipping null array element");
+                    }
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        return false;
+                    }
+                    action.accept(mapper.readValue(parser, type));
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+    
     public static <T> void saveToYaml(List<T> data, String filePath, Class<T> type) throws DataSerializationException {
         try {
             File file = new File(filePath);
@@ -0,0 +1,61 @@
+package ua.util;
+
+public class IsbnKey {
+    
+    public static final long INVALID = -1L;
+    
+    private static final long NON_CANONICAL_FLAG = 1L << 44;
+    
+    public static long of(String isbn) {
+        if (isbn == null) {
+            return INVALID;
+        }
+        
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 13) {
+                    return INVALID;
+                }
+                value = value * 10 + (c - '0');
+            } else if (c != '-' && !Character.isWhitespace(c)) {
+                return INVALID;
+            }
+        }
+        
+        if (digits == 13) {
+            return value;
+        }
+        if (digits == 10) {
+            return hasValidIsbn10Checksum(value) ? toIsbn13(value) : NON_CANONICAL_FLAG | value;
+        }
+        return INVALID;
+    }
+    
+    public static boolean isValid(long key) {
+        return key >= 0;
+    }
+    
+    private static boolean hasValidIsbn10Checksum(long isbn10) {
+        int sum = 0;
+        long rest = isbn10;
+        for (int weight = 1; weight <= 10; weight++) {
+            sum += (int) (rest % 10) * weight;
+            rest /= 10;
+        }
+        return sum % 11 == 0;
+    }
+    
+    private static long toIsbn13(long isbn10) {
+        long body = 978_000_000_000L + isbn10 / 10;
+        int sum = 0;
+        long rest = body;
+        for (int i = 0; i < 12; i++) {
+            sum += (int) (rest % 10) * (i % 2 == 0 ? 3 : 1);
+            rest /= 10;
+        }
+        return body * 10 + (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,45 @@
+package ua.util;
+
+public class ReaderIdKey {
+    
+    public static final long INVALID = -1L;
+    
+    private static final int RADIX = 37;
+    private static final int MAX_LENGTH = 10;
+    
+    public static long of(String readerId) {
+        if (readerId == null || readerId.isEmpty() || readerId.length() > MAX_LENGTH) {
+            return INVALID;
+        }
+        
+        long value = 0;
+        for (int i = 0; i < readerId.length(); i++) {
+            char c = readerId.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0' + 1;
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 11;
+            } else {
+                return INVALID;
+            }
+            value = value * RADIX + digit;
+        }
+        return value;
+    }
+    
+    public static String toReaderId(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Invalid reader ID key: " + key);
+        }
+        
+        char[] chars = new char[MAX_LENGTH];
+        int start = MAX_LENGTH;
+        while (key > 0) {
+            int digit = (int) (key % RADIX);
+            chars[--start] = digit <= 10 ? (char) ('0' + digit - 1) : (char) ('A' + digit - 11);
+            key /= RADIX;
+        }
+        return new String(chars, start, MAX_LENGTH - start);
+    }
+}
@@ -3,7 +3,11 @@ package ua.util;
 import ua.library.*;
 import ua.enums.*;
 import ua.repository.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class SerializationTest {
@@ -18,6 +22,11 @@ public class SerializationTest {
         testYamlSerialization();
         testExceptionHandling();
         testDataIntegrity();
+        testStreamingLoad();
+        testStreamingSave();
+        testBinarySnapshot();
+        testJournalRecovery();
+        testJournalBackpressure();
         
         System.out.println("\n=== TEST RESULTS ===");
         System.out.println("Passed: " + testsPassed);
@@ -135,6 +144,285 @@ public class SerializationTest {
         }
     }
     
+    private static void testStreamingLoad() {
+        System.out.println("--- Test: Streaming Load ---");
+        
+        try {
+            Path testPath = Path.of("data/test_stream_readers.json");
+            Files.createDirectories(testPath.getParent());
+            Files.writeString(testPath, "[{\"firstName\":\"John\",\"lastName\":\"Doe\",\"readerId\":\"RD11111\"},"
+                    + "null,{\"firstName\":\"Jane\",\"lastName\":\"Smith\",\"readerId\":\"RD22222\"},"
+                    + "{\"firstName\":\"Johnny\",\"lastName\":\"Doe\",\"readerId\":\"RD11111\"}]");
+            
+            ReaderRepository repo = new ReaderRepository();
+            int added = DataSerializer.streamFromJson(testPath.toString(), Reader.class, repo::addAll);
+            assertEquals(2, added, "Streaming load should add each distinct reader once");
+            assertEquals(2, repo.size(), "Repository should hold the streamed readers");
+            assertEquals("John", repo.findByIdentity("RD11111").firstName(), "First occurrence should win");
+            assertEquals(1, repo.findByLastName("smith").size(), "Streamed readers should be indexed");
+            
+            Files.writeString(testPath, "{\"firstName\":\"John\"}");
+            try {
+                DataSerializer.streamFromJson(testPath.toString(), Reader.class, repo::addAll);
+                testsFailed++;
+                System.err.println("FAIL: Should reject a document that is not an array");
+            } catch (DataSerializationException e) {
+                assertTrue(true, "Should reject a document that is not an array");
+            }
+            
+            System.out.println("Streaming Load tests passed\n");
+        } catch (IOException | DataSerializationException e) {
+            testsFailed++;
+            System.err.println("FAIL: Streaming load error: " + e.getMessage());
+        }
+    }
+    
+    private static void testStreamingSave() {
+        System.out.println("--- Test: Streaming Save ---");
+        
+        try {
+            ReaderRepository repo = new ReaderRepository();
+            repo.add(Reader.of("John", "Doe", "RD11111"));
+            repo.add(Reader.of("Jane", "Smith", "RD22222"));
+            
+            String compactPath = "data/test_stream_compact.json";
+            String prettyPath = "data/test_stream_pretty.json";
+            long compactBytes = DataSerializer.streamToJson(repo.iterator(), compactPath, false);
+            long prettyBytes = DataSerializer.streamToJson(repo.iterator(), prettyPath, true);
+            
+            String compact = Files.readString(Path.of(compactPath));
+            assertTrue(compactBytes == Files.size(Path.of(compactPath)), "Reported bytes should match the file size");
+            assertTrue(compact.startsWith("[{") && !compact.contains("\n"), "Compact output should have no whitespace");
+            assertTrue(compact.indexOf("RD11111") < compact.indexOf("RD22222"), "Output should keep repository order");
+            assertTrue(prettyBytes > compactBytes, "Pretty printing should be opt-in and larger");
+            
+            System.out.println("Streaming Save tests passed\n");
+        } catch (IOException | DataSerializationException e) {
+            testsFailed++;
+            System.err.println("FAIL: Streaming save error: " + e.getMessage());
+        }
+    }
+    
+    private static void testBinarySnapshot() {
+        System.out.println("--- Test: Binary Snapshot ---");
+        
+        try {
+            LibraryRepositories original = LibraryRepositories.empty();
+            Author orwell = Author.of("George", "Orwell", 1903);
+            Author huxley = Author.of("Aldous", "Huxley", 1894);
+            Reader reader1 = Reader.of("John", "Doe", "RD11111");
+            Reader reader2 = Reader.of("Jane", "Doe", "RD22222");
+            Book book1 = Book.of("1984", orwell, "0451524935", BookStatus.CHECKED_OUT);
+            Book book2 = Book.of("Brave New World", List.of(huxley, orwell), "978-0-06-085052-4", BookStatus.AVAILABLE);
+            LocalDate issued = LocalDate.of(2024, 1, 15);
+            
+            original.authors().add(orwell);
+            original.authors().add(huxley);
+            original.readers().add(reader1);
+            original.readers().add(reader2);
+            original.books().add(book1);
+            original.books().add(book2);
+            original.loans().add(Loan.of(book1, reader1, issued, issued.plusDays(14)));
+            original.loans().add(Loan.of(book1, reader2, issued.plusDays(20), issued.plusDays(34)));
+            original.memberships().add(Membership.of(reader1, issued, issued.plusYears(1), MembershipType.PREMIUM));
+            
+            String testPath = "data/test_library.snapshot";
+            long bytes = RepositorySerializer.saveSnapshot(original, testPath);
+            assertTrue(bytes == Files.size(Path.of(testPath)), "Reported bytes should match the file size");
+            
+            LibraryRepositories loaded = RepositorySerializer.loadSnapshot(testPath);
+            assertEquals(2, loaded.authors().size(), "Should load 2 authors");
+            assertEquals(2, loaded.readers().size(), "Should load 2 readers");
+            assertEquals(2, loaded.books().size(), "Should load 2 books");
+            assertEquals(2, loaded.loans().size(), "Should load 2 loans");
+            assertEquals(1, loaded.memberships().size(), "Should load 1 membership");
+            
+            Book loadedBook1 = loaded.books().getAll().get(0);
+            Book loadedBook2 = loaded.books().getAll().get(1);
+            assertEquals("0451524935", loadedBook1.getIsbn(), "Leading zeros in ISBNs should survive");
+            assertEquals("978-0-06-085052-4", loadedBook2.getIsbn(), "Hyphenated ISBNs should round-trip exactly");
+            assertEquals(BookStatus.CHECKED_OUT, loadedBook1.getStatus(), "Book status should match");
+            assertEquals(List.of(huxley, orwell), loadedBook2.getAuthors(), "Author order should match");
+            assertTrue(loadedBook2.getAuthors().get(1) == loaded.authors().getAll().get(0), 
+                      "Shared authors should be restored as one instance");
+            
+            Loan loadedLoan = loaded.loans().getAll().get(1);
+            assertTrue(loadedLoan.getBook() == loadedBook1, "Loans should reference the restored book");
+            assertEquals(issued.plusDays(20), loadedLoan.getIssueDate(), "Issue date should match");
+            assertEquals(issued.plusDays(34), loadedLoan.getReturnDate(), "Return date should match");
+            assertEquals(MembershipType.PREMIUM, loaded.memberships().getAll().get(0).getType(), "Membership type should match");
+            assertEquals(1, loaded.loans().findByReader(reader2).size(), "Restored loans should be indexed");
+            
+            byte[] content = Files.readAllBytes(Path.of(testPath));
+            Files.write(Path.of(testPath), java.util.Arrays.copyOf(content, content.length - 5));
+            try {
+                RepositorySerializer.loadSnapshot(testPath);
+                testsFailed++;
+                System.err.println("FAIL: Should reject a truncated snapshot");
+            } catch (DataSerializationException e) {
+                assertTrue(true, "Should reject a truncated snapshot");
+            }
+            
+            content[5] = 99;
+            Files.write(Path.of(testPath), content);
+            try {
+                RepositorySerializer.loadSnapshot(testPath);
+                testsFailed++;
+                System.err.println("FAIL: Should reject an unknown snapshot version");
+            } catch (DataSerializationException e) {
+                assertTrue(true, "Should reject an unknown snapshot version");
+            }
+            
+            System.out.println("Binary Snapshot tests passed\n");
+        } catch (IOException | DataSerializationException e) {
+            testsFailed++;
+            System.err.println("FAIL: Binary snapshot error: " + e.getMessage());
+        }
+    }
+    
+    private static void testJournalRecovery() {
+        System.out.println("--- Test: Journal Recovery ---");
+        
+        Path directory = Path.of("data/test_journal");
+        try {
+            deleteDirectory(directory);
+            Author orwell = Author.of("George", "Orwell", 1903);
+            Reader reader1 = Reader.of("John", "Doe", "RD11111");
+            Reader reader2 = Reader.of("Jane", "Doe", "RD22222");
+            LocalDate issued = LocalDate.of(2024, 1, 15);
+            
+            try (JournaledLibrary library = JournaledLibrary.open(directory)) {
+                Book book1 = Book.of("1984", orwell, "0451524935", BookStatus.AVAILABLE);
+                Book book2 = Book.of("Animal Farm", orwell, "0451526341", BookStatus.AVAILABLE);
+                library.authors().add(orwell);
+                library.readers().add(reader1);
+                library.readers().add(reader2);
+                library.books().add(book1);
+                library.books().add(book2);
+                Loan loan = Loan.of(book1, reader1, issued, issued.plusDays(14));
+                library.loans().add(loan);
+                library.memberships().add(Membership.of(reader1, issued, issued.plusYears(1), MembershipType.STUDENT));
+                
+                book1.setStatus(BookStatus.CHECKED_OUT);
+                book2.setIsbn("978-0-06-085052-4");
+                loan.setReturnDate(issued.plusDays(21));
+                library.readers().remove(reader2);
+                List<Author> anthology = new ArrayList<>();
+                for (int i = 0; i < 6; i++) {
+                    anthology.add(Author.of("Contributor", "Number" + i, 1950 + i));
+                }
+                library.books().add(Book.of("Collected Stories ".repeat(40), anthology, "9780140449136", BookStatus.AVAILABLE));
+                library.commit();
+                assertTrue(library.getJournalSize() > 0, "Journal should hold the appended entries");
+            }
+            
+            try (JournaledLibrary library = JournaledLibrary.open(directory)) {
+                assertEquals(1, library.authors().size(), "Replay should restore authors");
+                assertEquals(1, library.readers().size(), "Replay should apply removals");
+                assertEquals(3, library.books().size(), "Replay should restore books");
+                Book anthology = library.books().findByIdentity("9780140449136");
+                assertTrue(anthology != null && anthology.getAuthors().size() == 6, 
+                          "Books with many authors should survive replay");
+                assertEquals("Collected Stories ".repeat(40), anthology == null ? null : anthology.getTitle(), 
+                            "Long titles should survive replay");
+                library.books().remove(anthology);
+                assertEquals(BookStatus.CHECKED_OUT, library.books().findByIdentity("0451524935").getStatus(), 
+                            "Replay should apply field changes");
+                assertTrue(library.books().findByIdentity("0451526341") == null, "Re-keyed book should leave its old ISBN");
+                assertEquals("Animal Farm", library.books().findByIdentity("978-0-06-085052-4").getTitle(), 
+                            "Re-keyed book should be found by its new ISBN");
+                Loan loan = library.loans().getAll().get(0);
+                assertEquals(issued.plusDays(21), loan.getReturnDate(), "Replay should apply loan changes");
+                assertTrue(loan.getBook() == library.books().findByIdentity("0451524935"), 
+                          "Replayed loans should reference the replayed book");
+                assertEquals(MembershipType.STUDENT, library.memberships().getAll().get(0).getType(), 
+                            "Replay should restore memberships");
+                
+                library.checkpoint();
+                library.books().findByIdentity("0451524935").setTitle("Nineteen Eighty-Four");
+            }
+            
+            long journals;
+            try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                journals = files.filter(file -> file.getFileName().toString().startsWith("journal-")).count();
+            }
+            assertEquals(Long.valueOf(1L), Long.valueOf(journals), "Checkpoint should truncate journals older than the snapshot");
+            
+            Path current;
+            try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                current = files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted()
+                               .reduce((first, second) -> second).orElseThrow();
+            }
+            Files.write(current, new byte[]{0, 0, 1, 0, 7, 7}, java.nio.file.StandardOpenOption.APPEND);
+            
+            try (JournaledLibrary library = JournaledLibrary.open(directory)) {
+                assertEquals(2, library.books().size(), "Snapshot plus journal should restore all books");
+                assertEquals("Nineteen Eighty-Four", library.books().findByIdentity("0451524935").getTitle(), 
+                            "Changes after the checkpoint should be replayed");
+                assertEquals(1, library.loans().size(), "Snapshot should restore loans");
+            }
+            
+            deleteDirectory(directory);
+            System.out.println("Journal Recovery tests passed\n");
+        } catch (IOException | DataSerializationException e) {
+            testsFailed++;
+            System.err.println("FAIL: Journal recovery error: " + e.getMessage());
+        }
+    }
+    
+    private static void testJournalBackpressure() {
+        System.out.println("--- Test: Journal Backpressure ---");
+        
+        Path directory = Path.of("data/test_journal_backpressure");
+        try {
+            deleteDirectory(directory);
+            RepositoryJournal journal = new RepositoryJournal(directory.resolve("journal.log"), 64, 256, 1 << 20, 0);
+            byte[] entry = new byte[40];
+            for (int i = 0; i < 100; i++) {
+                journal.append(entry);
+            }
+            assertTrue(journal.getDurableSequence() >= 90, "Appends past the buffer cap should wait for a flush");
+            
+            Thread closer = new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Journal close failed: " + e.getMessage());
+                }
+            });
+            closer.start();
+            closer.join(10_000);
+            assertTrue(!closer.isAlive(), "Close should not hang without a sync interval");
+            assertEquals(100, RepositoryJournal.read(directory.resolve("journal.log")).size(), "Close should flush buffered entries");
+            
+            boolean rejected = false;
+            try {
+                journal.append(entry);
+            } catch (IllegalStateException e) {
+                rejected = true;
+            }
+            assertTrue(rejected, "Closed journal should reject appends");
+            
+            deleteDirectory(directory);
+            System.out.println("Journal Backpressure tests passed\n");
+        } catch (IOException | InterruptedException e) {
+            testsFailed++;
+            System.err.println("FAIL: Journal backpressure error: " + e.getMessage());
+        }
+    }
+    
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+    
     private static void assertTrue(boolean condition, String message) {
         if (condition) {
             testsPassed++;
@@ -3,6 +3,7 @@ package ua.util;
 import ua.library.*;
 import ua.enums.*;
 import java.time.LocalDate;
+import java.util.Objects;
 
 public class ValidationTest {
     
@@ -13,6 +14,7 @@ public class ValidationTest {
         System.out.println("=== VALIDATION UNIT TESTS ===\n");
         
         testValidData();
+        testIdentityKeys();
         testInvalidBookData();
         testInvalidAuthorData();
         testInvalidReaderData();
@@ -55,6 +57,40 @@ public class ValidationTest {
         }
     }
     
+    private static void testIdentityKeys() {
+        System.out.println("--- Test: Identity Keys ---");
+        
+        assertTrue(IsbnKey.of("9780451524935") == 9780451524935L, "ISBN-13 should map to its numeric value");
+        assertTrue(IsbnKey.of("978-0-451-52493-5") == 9780451524935L, "Hyphens should be ignored");
+        assertTrue(IsbnKey.of("0451524934") == 9780451524935L, "Valid ISBN-10 should normalize to ISBN-13");
+        assertTrue(IsbnKey.of("1234567890") != IsbnKey.of("1234567891"),
+                   "ISBN-10 values without a valid checksum should stay distinct");
+        assertTrue(!IsbnKey.isValid(IsbnKey.of("12345")), "Short ISBN should be invalid");
+        assertTrue(!IsbnKey.isValid(IsbnKey.of("97804515249X5")), "Letters should be invalid");
+        assertTrue(!IsbnKey.isValid(IsbnKey.of(null)), "Null ISBN should be invalid");
+        
+        assertTrue("RD00042".equals(ReaderIdKey.toReaderId(ReaderIdKey.of("RD00042"))),
+                   "Reader ID should survive packing");
+        assertTrue(ReaderIdKey.of("0ABCDE") != ReaderIdKey.of("ABCDE"), "Leading zeros should keep IDs distinct");
+        assertTrue(ReaderIdKey.of("rd001") == ReaderIdKey.INVALID, "Lowercase reader IDs should be invalid");
+        
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i * 31, "v" + i);
+        }
+        for (long i = 0; i < 1000; i += 2) {
+            map.remove(i * 31);
+        }
+        boolean consistent = map.size() == 500;
+        for (long i = 0; i < 1000; i++) {
+            String expected = i % 2 == 0 ? null : "v" + i;
+            consistent &= Objects.equals(expected, map.get(i * 31));
+        }
+        assertTrue(consistent, "Long map should survive removals with probe chains intact");
+        
+        System.out.println("Identity Keys tests passed\n");
+    }
+    
     private static void testInvalidBookData() {
         System.out.println("--- Test: Invalid Book Data ---");
         